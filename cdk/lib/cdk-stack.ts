@@ -323,7 +323,7 @@ export class CdkStack extends cdk.Stack {
           ec2.InstanceSize.LARGE
         ),
       },
-      instances: 1, // Writer + Reader
+      instances: 2, // Writer + Reader (read-only transactions use the reader endpoint)
       defaultDatabaseName: 'products_db',
       backup: {
         retention: cdk.Duration.days(7),
@@ -364,7 +364,7 @@ export class CdkStack extends cdk.Stack {
       'set -e',  // Exit on any error
       'exec > >(tee /var/log/user-data.log|logger -t user-data -s 2>/dev/console) 2>&1',  // Log all output
       'dnf update -y',
-      'dnf install -y java-17-amazon-corretto',
+      'dnf install -y java-21-amazon-corretto',
       'dnf install -y amazon-cloudwatch-agent',
       'dnf install -y git',
       'dnf install -y make',
@@ -474,6 +474,7 @@ export class CdkStack extends cdk.Stack {
       `SECRET_ARN="${dbSecret.secretArn}"`,
       'DB_SECRET=$(aws secretsmanager get-secret-value --secret-id $SECRET_ARN --query SecretString --output text)',
       'DB_HOST=$(echo $DB_SECRET | jq -r .host || echo "${auroraCluster.clusterEndpoint.hostname}")',
+      `DB_READER_HOST="${auroraCluster.clusterReadEndpoint.hostname}"`,
       'DB_USERNAME=$(echo $DB_SECRET | jq -r .username)',
       'DB_PASSWORD=$(echo $DB_SECRET | jq -r .password)',
       
@@ -604,7 +605,7 @@ export class CdkStack extends cdk.Stack {
       `Environment="DATA_BUCKET_NAME=${dataBucket.bucketName}"`,
       `Environment="AWS_REGION=${cdk.Stack.of(this).region}"`,
       'Environment="JAVA_TOOL_OPTIONS=-Dlogging.file.path=/opt/app/logs -Dlogging.file.name=application.log"',
-      'ExecStart=/usr/bin/java -javaagent:/opt/app/agent/aws-opentelemetry-agent.jar -jar /opt/app/app.jar --spring.datasource.url=jdbc:mysql://${DB_HOST}:3306/products_db --spring.datasource.username=${DB_USERNAME} --spring.datasource.password=${DB_PASSWORD} --server.port=3030',
+      'ExecStart=/usr/bin/java -javaagent:/opt/app/agent/aws-opentelemetry-agent.jar -jar /opt/app/app.jar --spring.profiles.active=prod --spring.datasource.url=jdbc:mysql://${DB_HOST}:3306/products_db --product.datasource.reader.enabled=true --product.datasource.reader.url=jdbc:mysql://${DB_READER_HOST}:3306/products_db --spring.datasource.username=${DB_USERNAME} --spring.datasource.password=${DB_PASSWORD} --product.snapshot.publish=true --server.port=3030',
       'Restart=on-failure',
       'RestartSec=10',
       '',
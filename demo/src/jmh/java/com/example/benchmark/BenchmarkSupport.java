@@ -0,0 +1,179 @@
+package com.example.benchmark;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.DemoApplication;
+import com.example.model.Product;
+import com.example.reactive.ReactiveApplication;
+import com.example.service.ProductIndex;
+import com.example.service.ProductService;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * Shared fixtures for the JMH benchmarks: synthetic catalogs and servlet or
+ * reactive application contexts backed by an embedded H2 database and the
+ * in-memory S3 stand-in.
+ */
+final class BenchmarkSupport {
+
+    private static final String[] ADJECTIVES = {
+        "Wireless", "Smart", "Portable", "Ultra", "Compact", "Pro", "Classic", "Rugged", "Slim", "Premium"
+    };
+    private static final String[] NOUNS = {
+        "Phone", "Laptop", "Headphones", "Tablet", "Watch", "Speaker", "Camera", "Charger", "Keyboard", "Monitor"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Deterministic synthetic products; ids are left null unless withIds is set.
+     */
+    static List<Product> products(int count, boolean withIds) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+            Product product = new Product(withIds ? (long) (i + 1) : null, name,
+                    "Benchmark product " + i + " with a \"quoted\" description",
+                    BigDecimal.valueOf(random.nextInt(200_000), 2),
+                    random.nextInt(100), now, now);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(Level.WARN);
+    }
+
+    /**
+     * Start the application on a random port against a fresh in-memory H2
+     * database, seed it with count products and wait for the indexes to load.
+     * Extra arguments are passed as --name=value overrides and replace the
+     * defaults below with the same name.
+     */
+    static ConfigurableApplicationContext startApplication(int count, String... extraArguments) {
+        // Passed as command-line arguments so they override application.properties
+        List<String> defaults = List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench" + count
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--aws.s3.mode=local",
+                "--product.search.full-text=false",
+                "--product.outbox.dispatcher.enabled=false",
+                "--product.snapshot.enabled=false",
+                "--server.tomcat.accesslog.enabled=false",
+                "--logging.file.name=target/benchmark.log",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example=WARN",
+                "--logging.level.com.example.config.SampledRequestLoggingFilter=WARN",
+                "--logging.level.access=WARN");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(arguments(defaults, extraArguments));
+
+        ProductService productService = context.getBean(ProductService.class);
+        List<Product> products = products(count, false);
+        for (int from = 0; from < products.size(); from += 1000) {
+            productService.createProducts(new ArrayList<>(products.subList(from, Math.min(from + 1000, products.size()))));
+        }
+        awaitIndexes(context);
+        return context;
+    }
+
+    /**
+     * Start the reactive variant on a random port against the same in-memory
+     * H2 database as startApplication, seeded with count products through the
+     * servlet application, which is closed again before the reactive one
+     * starts. Extra arguments override the defaults as in startApplication.
+     */
+    static ConfigurableApplicationContext startReactiveApplication(int count, String... extraArguments) {
+        startApplication(count).close();
+        String options = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        List<String> defaults = List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bench" + count + options,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///bench" + count + options,
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                "--aws.s3.mode=local",
+                "--product.search.full-text=false",
+                "--product.outbox.dispatcher.enabled=false",
+                "--logging.file.name=target/benchmark.log",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example=WARN",
+                // H2 warns that it cannot set read-only per transaction on every transaction
+                "--logging.level.io.r2dbc.h2=ERROR");
+        return new SpringApplicationBuilder(ReactiveApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(arguments(defaults, extraArguments));
+    }
+
+    // Spring joins repeated command-line options with commas, so drop overridden defaults
+    private static String[] arguments(List<String> defaults, String... extraArguments) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String argument : defaults) {
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+        }
+        for (String argument : extraArguments) {
+            arguments.put(argument.substring(0, argument.indexOf('=')), argument);
+        }
+        return arguments.values().toArray(new String[0]);
+    }
+
+    static void awaitIndexes(ConfigurableApplicationContext context) {
+        for (ProductIndex index : context.getBeansOfType(ProductIndex.class).values()) {
+            while (!index.isReady()) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Output stream that only counts bytes, so serialization cost is measured
+     * without buffering the output.
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.example.service.CatalogSnapshot;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Reading a 100k catalog for the index load at startup: every row streamed
+ * from the database as entities, against the mapped catalog snapshot checked
+ * with an (id, version) scan of the database, as ProductIndexManager does
+ * when a snapshot is available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogSnapshotBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+
+    @Param({"database", "snapshot"})
+    private String source;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkSupport.startApplication(CATALOG_SIZE);
+        productRepository = context.getBean(ProductRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        Files.createDirectories(Paths.get("target"));
+        file = Files.createTempFile(Paths.get("target"), "catalog-", ".pcat");
+        try (CatalogSnapshot.Writer writer = new CatalogSnapshot.Writer(System.currentTimeMillis(), Paths.get("target"))) {
+            transactionTemplate.executeWithoutResult(status -> stream(writer::add));
+            writer.writeTo(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long load() throws IOException {
+        if (source.equals("database")) {
+            long[] checksum = {0};
+            transactionTemplate.executeWithoutResult(status -> stream(product -> checksum[0] += product.getVersion()));
+            return checksum[0];
+        }
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            long[] checksum = {0};
+            int[] row = {0};
+            transactionTemplate.executeWithoutResult(status -> productRepository.scanVersions((id, version) -> {
+                if (snapshot.id(row[0]) == id && snapshot.version(row[0]) == version) {
+                    checksum[0] += snapshot.product(row[0]).getVersion();
+                }
+                row[0]++;
+            }));
+            return checksum[0];
+        }
+    }
+
+    private void stream(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                consumer.accept(product);
+                entityManager.detach(product);
+            }
+        }
+    }
+}
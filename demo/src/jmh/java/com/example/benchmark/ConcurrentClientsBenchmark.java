@@ -0,0 +1,93 @@
+package com.example.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end HTTP throughput with many concurrent clients, comparing the
+ * platform-thread Tomcat pool ("servlet"), virtual threads with the
+ * connection limiter ("servlet-virtual") and the WebFlux and R2DBC variant
+ * ("reactive"). Each operation is one wave of "clients" simultaneous requests
+ * that each hit the database; requests per second = clients / time per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConcurrentClientsBenchmark {
+
+    @Param({"1000", "2000"})
+    private int clients;
+
+    @Param({"servlet", "servlet-virtual", "reactive"})
+    private String stack;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        if (stack.equals("reactive")) {
+            context = BenchmarkSupport.startReactiveApplication(10_000);
+        } else {
+            context = BenchmarkSupport.startApplication(10_000,
+                    "--spring.threads.virtual.enabled=" + stack.equals("servlet-virtual"),
+                    "--server.tomcat.max-connections=" + (clients * 2),
+                    "--server.tomcat.accept-count=" + clients);
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int concurrentPageReads() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/api/products?limit=20&after=" + (i * 7 % 9_000)))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            responses[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
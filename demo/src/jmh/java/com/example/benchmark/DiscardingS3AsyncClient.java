@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * S3AsyncClient stub that reads and discards request bodies on the calling
+ * thread and completes at once, so benchmarks see the full cost of building
+ * and submitting a payload but none of the network.
+ */
+class DiscardingS3AsyncClient implements S3AsyncClient {
+
+    long bytesWritten;
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody requestBody) {
+        CompletableFuture<PutObjectResponse> result = new CompletableFuture<>();
+        requestBody.subscribe(new Subscriber<ByteBuffer>() {
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                bytesWritten += buffer.remaining();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(PutObjectResponse.builder().build());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
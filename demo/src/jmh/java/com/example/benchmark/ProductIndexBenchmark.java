@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.service.ProductPriceIndex;
+import com.example.service.ProductSearchIndex;
+
+/**
+ * Name search and price-range lookups against the in-memory indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductIndexBenchmark {
+
+    private static final long MIN_CENTS = 10_000;
+    private static final long MAX_CENTS = 12_000;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ProductSearchIndex searchIndex;
+    private ProductPriceIndex priceIndex;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        searchIndex = new ProductSearchIndex(false);
+        priceIndex = new ProductPriceIndex();
+        for (Product product : BenchmarkSupport.products(size, true)) {
+            searchIndex.load(product);
+            priceIndex.load(product);
+        }
+        searchIndex.markReady();
+        priceIndex.markReady();
+    }
+
+    @Benchmark
+    public List<KeysetCursor> searchWord() {
+        return searchIndex.search("phone", null, 51);
+    }
+
+    @Benchmark
+    public List<KeysetCursor> searchSelective() {
+        return searchIndex.search("camera 99", null, 51);
+    }
+
+    @Benchmark
+    public List<KeysetCursor> searchShortTerm() {
+        return searchIndex.search("ph", null, 51);
+    }
+
+    @Benchmark
+    public List<KeysetCursor> priceRangePage() {
+        return priceIndex.range(MIN_CENTS, MAX_CENTS, null, 51);
+    }
+
+    @Benchmark
+    public long priceRangeCount() {
+        return priceIndex.count(MIN_CENTS, MAX_CENTS);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.model.Product;
+import com.example.model.ProductSummary;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One 500-row list page from a 100k catalog, read and serialized as managed
+ * Product entities or as ProductSummary DTO projections. Descriptions are
+ * padded to the 1000 characters the column allows, which entities load and
+ * summaries skip. Run with -prof gc to compare allocation per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductListBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"entity", "summary"})
+    private String readModel;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private ObjectMapper objectMapper;
+    private Class<?> type;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.startApplication(CATALOG_SIZE);
+        context.getBean(JdbcTemplate.class).update(
+                "UPDATE products SET description = LEFT(CONCAT(description, REPEAT(' lorem ipsum', 100)), 1000)");
+        productRepository = context.getBean(ProductRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        // As ProductService.getAllProducts runs it
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        type = readModel.equals("entity") ? Product.class : ProductSummary.class;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long listPage() {
+        long after = ThreadLocalRandom.current().nextLong(CATALOG_SIZE - PAGE_SIZE);
+        return transactionTemplate.execute(status -> {
+            List<?> rows = productRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(PAGE_SIZE + 1), type);
+            BenchmarkSupport.CountingOutputStream out = new BenchmarkSupport.CountingOutputStream();
+            try {
+                objectMapper.writeValue(out, rows);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.count;
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.model.Product;
+import com.example.model.ProductPage;
+import com.example.service.ProductService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * ProductService calls and full list-endpoint rendering (controller, service,
+ * repository and JSON) against an embedded H2 catalog of 1k and 100k rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("100.00");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("120.00");
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private MockMvc mockMvc;
+    private long hotId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.startApplication(catalogSize);
+        productService = context.getBean(ProductService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        hotId = catalogSize / 2;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Product getProductByIdHot() {
+        return productService.getProductById(hotId);
+    }
+
+    @Benchmark
+    public ProductPage searchByName() {
+        return productService.searchByName("phone", null, 50);
+    }
+
+    @Benchmark
+    public ProductPage findByPriceRange() {
+        return productService.findByPriceRange(MIN_PRICE, MAX_PRICE, null, 50);
+    }
+
+    @Benchmark
+    public int renderListPage() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/products").param("limit", "500")).andReturn();
+        return result.getResponse().getContentLength();
+    }
+
+    @Benchmark
+    public int renderListPageDeep() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/products")
+                .param("after", String.valueOf(catalogSize - 600))
+                .param("limit", "500")).andReturn();
+        return result.getResponse().getContentLength();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportCatalog() throws Exception {
+        BenchmarkSupport.CountingOutputStream out = new BenchmarkSupport.CountingOutputStream();
+        productService.exportProducts(out);
+        return out.count;
+    }
+}
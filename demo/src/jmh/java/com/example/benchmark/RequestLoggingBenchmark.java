@@ -0,0 +1,97 @@
+package com.example.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import jakarta.servlet.Filter;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Per-request cost of logging on the product detail endpoint, with the
+ * request filters in place: logging off as a baseline, the default profile
+ * (synchronous console and file, payload logging on every request) and the
+ * prod profile (async file appender, sampled payload logging). Console
+ * output is redirected to target/benchmark-console.log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    @Param({"off", "default", "prod"})
+    private String logging;
+
+    private PrintStream originalOut;
+    private PrintStream console;
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() throws IOException {
+        originalOut = System.out;
+        console = new PrintStream(new FileOutputStream("target/benchmark-console.log"), false);
+        System.setOut(console);
+        if ("off".equals(logging)) {
+            context = BenchmarkSupport.startApplication(1000);
+        } else {
+            context = BenchmarkSupport.startApplication(1000,
+                    "--spring.profiles.active=" + logging,
+                    "--logging.file.name=target/benchmark-" + logging + ".log",
+                    "--logging.level.root=INFO",
+                    "--logging.level.com.example=INFO",
+                    "--logging.level.access=INFO",
+                    "--logging.level.com.example.config.SampledRequestLoggingFilter=DEBUG");
+        }
+        // Registered filters (the access log) first, then plain filter beans
+        List<Filter> filters = new ArrayList<>();
+        for (FilterRegistrationBean<?> registration : context.getBeansOfType(FilterRegistrationBean.class).values()) {
+            filters.add(registration.getFilter());
+        }
+        filters.addAll(context.getBeansOfType(Filter.class).values());
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(filters.toArray(new Filter[0]))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.setOut(originalOut);
+        console.close();
+    }
+
+    @Benchmark
+    public int getProductById() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/products/500")).andReturn();
+        return result.getResponse().getContentAsByteArray().length;
+    }
+}
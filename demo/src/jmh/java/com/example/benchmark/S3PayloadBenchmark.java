@@ -0,0 +1,73 @@
+package com.example.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.Product;
+import com.example.service.ProductJsonCodec;
+import com.example.service.ProductMirrorPipeline;
+import com.example.service.S3RequestMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Building and handing off the S3 mirror payload for one product through
+ * ProductMirrorPipeline, with the network replaced by a discarding
+ * S3AsyncClient that completes each request at once. stringFormatBaseline
+ * keeps the original String.format payload around for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3PayloadBenchmark {
+
+    private DiscardingS3AsyncClient s3Client;
+    private ProductJsonCodec jsonCodec;
+    private ProductMirrorPipeline pipeline;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        s3Client = new DiscardingS3AsyncClient();
+        jsonCodec = new ProductJsonCodec();
+        pipeline = new ProductMirrorPipeline(s3Client, jsonCodec,
+                new S3RequestMetrics(new SimpleMeterRegistry()), "benchmark-bucket", 64, 10_000);
+        product = BenchmarkSupport.products(1, true).get(0);
+    }
+
+    @Benchmark
+    public long mirrorUpsert() {
+        pipeline.upsert(product).join();
+        return s3Client.bytesWritten;
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return jsonCodec.encode(product);
+    }
+
+    @Benchmark
+    public byte[] stringFormatBaseline() {
+        return String.format(
+                "{\n  \"id\": %d,\n  \"name\": \"%s\",\n  \"description\": \"%s\",\n"
+                        + "  \"price\": %s,\n  \"stockQuantity\": %d\n}",
+                product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStockQuantity()).getBytes(StandardCharsets.UTF_8);
+    }
+}
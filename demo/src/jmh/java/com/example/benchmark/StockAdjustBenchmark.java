@@ -0,0 +1,69 @@
+package com.example.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.model.Product;
+import com.example.service.ProductService;
+
+/**
+ * Concurrent stock adjustments through ProductService.adjustStock: all
+ * threads on one hot product, and spread across the catalog for comparison.
+ * Run with and without the stock buffer, i.e. journaled write-combining
+ * against one conditional UPDATE per adjustment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockAdjustBenchmark {
+
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"true", "false"})
+    private boolean buffered;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkSupport.startApplication(CATALOG_SIZE,
+                "--product.stock.buffer.enabled=" + buffered,
+                "--product.stock.buffer.journal-dir=target/jmh-stock-journal");
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Product adjustHotProduct() {
+        return productService.adjustStock(1L, 1);
+    }
+
+    @Benchmark
+    public Product adjustSpread() {
+        return productService.adjustStock(ThreadLocalRandom.current().nextLong(1, CATALOG_SIZE + 1), 1);
+    }
+}
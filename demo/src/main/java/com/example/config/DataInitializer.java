@@ -12,8 +12,9 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.example.repository.ProductOutboxRepository;
 import com.example.repository.ProductRepository;
-import com.example.service.S3Service;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -21,12 +22,12 @@ public class DataInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
     
     private final ProductRepository productRepository;
-    private final S3Service s3Service;
+    private final ProductOutboxRepository outboxRepository;
     
     @Autowired
-    public DataInitializer(ProductRepository productRepository, S3Service s3Service) {
+    public DataInitializer(ProductRepository productRepository, ProductOutboxRepository outboxRepository) {
         this.productRepository = productRepository;
-        this.s3Service = s3Service;
+        this.outboxRepository = outboxRepository;
     }
 
     @Override
@@ -49,9 +50,8 @@ public class DataInitializer implements CommandLineRunner {
                     Product savedProduct = productRepository.save(product);
                     logger.info("Created product in database: {}", savedProduct.getName());
                     
-                    // Also save to S3
-                    s3Service.saveProductToS3(savedProduct);
-                    logger.info("Saved product to S3: {}", savedProduct.getName());
+                    // Queue for S3 mirroring
+                    outboxRepository.save(ProductOutboxEvent.upsert(savedProduct.getId()));
                 } catch (Exception e) {
                     logger.error("Error creating product: {}", e.getMessage(), e);
                 }
@@ -0,0 +1,74 @@
+package com.example.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Wraps each connection pool in a ConnectionLimitingDataSource when
+ * product.datasource.limiter.enabled is set, which it is by default whenever
+ * virtual threads are enabled. Wrappers and routers over those pools, such as
+ * the read/write routing DataSource, are left alone so a connection is only
+ * limited once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceLimiterConfig.class);
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof DelegatingDataSource
+                        || bean instanceof AbstractRoutingDataSource) {
+                    return bean;
+                }
+                int poolSize = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize()
+                        : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int permits = environment.getProperty("product.datasource.limiter.permits", Integer.class, poolSize);
+                long acquireTimeoutMs = environment.getProperty(
+                        "product.datasource.limiter.acquire-timeout-ms", Long.class, 10000L);
+                int maxWaiting = environment.getProperty(
+                        "product.datasource.limiter.max-waiting", Integer.class, 5000);
+                logger.info("Limiting DataSource '{}' to {} concurrent connections (max {} waiting)",
+                        beanName, permits, maxWaiting);
+                return new ConnectionLimitingDataSource((DataSource) bean, permits, acquireTimeoutMs, maxWaiting);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limiter) {
+                Gauge.builder("product.datasource.limiter.available", limiter,
+                                ConnectionLimitingDataSource::getAvailablePermits)
+                        .description("Connection permits not currently held")
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("product.datasource.limiter.waiting", limiter, ConnectionLimitingDataSource::getWaiting)
+                        .description("Callers queued for a connection permit")
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.config;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * Asynchronous view of an InMemoryS3Client, so objects written through the
+ * async mirror pipeline are visible to synchronous reads. Each call completes
+ * after the configured latency on a shared delayed executor, which makes the
+ * pipeline's concurrency limits observable without a network.
+ */
+public class InMemoryS3AsyncClient implements S3AsyncClient {
+
+    private final InMemoryS3Client store;
+    private final Executor executor;
+
+    public InMemoryS3AsyncClient(InMemoryS3Client store, Duration latency) {
+        this.store = store;
+        this.executor = CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody requestBody) {
+        return readAll(requestBody).thenApplyAsync(
+                content -> store.putObject(request, RequestBody.fromBytes(content)), executor);
+    }
+
+    @Override
+    public CompletableFuture<DeleteObjectResponse> deleteObject(DeleteObjectRequest request) {
+        return CompletableFuture.supplyAsync(() -> store.deleteObject(request), executor);
+    }
+
+    @Override
+    public <ReturnT> CompletableFuture<ReturnT> getObject(GetObjectRequest request,
+            AsyncResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+        CompletableFuture<ReturnT> result = responseTransformer.prepare();
+        CompletableFuture.supplyAsync(() -> store.getObject(request, ResponseTransformer.toBytes()), executor)
+                .whenComplete((object, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        responseTransformer.exceptionOccurred(cause);
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    ResponseBytes<GetObjectResponse> bytes = object;
+                    responseTransformer.onResponse(bytes.response());
+                    responseTransformer.onStream(AsyncRequestBody.fromBytes(bytes.asByteArrayUnsafe()));
+                });
+        return result;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static CompletableFuture<byte[]> readAll(AsyncRequestBody body) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                byte[] chunk = new byte[buffer.remaining()];
+                buffer.get(chunk);
+                content.write(chunk, 0, chunk.length);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(content.toByteArray());
+            }
+        });
+        return result;
+    }
+}
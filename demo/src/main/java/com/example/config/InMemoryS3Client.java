@@ -0,0 +1,199 @@
+package com.example.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * Local stand-in for S3 that keeps objects in memory, keyed by bucket and key.
+ * Only the operations the application uses are implemented; everything else
+ * falls through to the S3Client defaults and throws UnsupportedOperationException.
+ * Enabled with aws.s3.mode=local for development and for exercising the
+ * mirroring code without AWS credentials. Given a directory, objects are also
+ * written through to files under directory/bucket/key and read back from
+ * there after a restart, so state such as catalog snapshots survives it.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final Map<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Path directory;
+
+    public InMemoryS3Client() {
+        this(null);
+    }
+
+    public InMemoryS3Client(Path directory) {
+        this.directory = directory != null ? directory.toAbsolutePath().normalize() : null;
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        byte[] content;
+        try (InputStream in = requestBody.contentStreamProvider().newStream()) {
+            content = in.readAllBytes();
+        } catch (IOException e) {
+            throw SdkClientException.create("Failed to read request body", e);
+        }
+        String path = path(request.bucket(), request.key());
+        if (directory != null) {
+            write(path, content);
+        }
+        objects.put(path, new StoredObject(content, request.contentType(), Instant.now()));
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+            ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+        StoredObject object = require(request.bucket(), request.key());
+        int start = 0;
+        int end = object.content.length;
+        if (request.range() != null) {
+            // Only the single "bytes=first-last" form the application sends
+            String[] bounds = request.range().substring("bytes=".length()).split("-");
+            start = Math.min(Integer.parseInt(bounds[0]), end);
+            end = Math.min(Integer.parseInt(bounds[1]) + 1, end);
+        }
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) (end - start))
+                .contentType(object.contentType)
+                .lastModified(object.lastModified)
+                .build();
+        try {
+            return responseTransformer.transform(response,
+                    AbortableInputStream.create(new ByteArrayInputStream(object.content, start, end - start)));
+        } catch (Exception e) {
+            throw SdkClientException.create("Failed to transform response", e);
+        }
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredObject object = require(request.bucket(), request.key());
+        return HeadObjectResponse.builder()
+                .contentLength((long) object.content.length)
+                .contentType(object.contentType)
+                .lastModified(object.lastModified)
+                .build();
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        String path = path(request.bucket(), request.key());
+        objects.remove(path);
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(file(path));
+            } catch (IOException e) {
+                throw SdkClientException.create("Failed to delete " + path, e);
+            }
+        }
+        return DeleteObjectResponse.builder().build();
+    }
+
+    /**
+     * Number of objects currently stored, across all buckets.
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        objects.clear();
+    }
+
+    private StoredObject require(String bucket, String key) {
+        String path = path(bucket, key);
+        StoredObject object = objects.get(path);
+        if (object == null && directory != null) {
+            object = read(path);
+        }
+        if (object == null) {
+            throw NoSuchKeyException.builder()
+                    .message("The specified key does not exist: " + key)
+                    .statusCode(404)
+                    .build();
+        }
+        return object;
+    }
+
+    private static String path(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+
+    private Path file(String path) {
+        Path file = directory.resolve(path).normalize();
+        if (!file.startsWith(directory)) {
+            throw SdkClientException.create("Key escapes the local S3 directory: " + path);
+        }
+        return file;
+    }
+
+    // Written to a temporary file and renamed, so a reader never sees a partial object
+    private void write(String path, byte[] content) {
+        Path file = file(path);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), ".upload-", ".tmp");
+            Files.write(temporary, content);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw SdkClientException.create("Failed to write " + path, e);
+        }
+    }
+
+    private StoredObject read(String path) {
+        Path file = file(path);
+        try {
+            StoredObject object = new StoredObject(Files.readAllBytes(file), null,
+                    Files.getLastModifiedTime(file).toInstant());
+            StoredObject existing = objects.putIfAbsent(path, object);
+            return existing != null ? existing : object;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw SdkClientException.create("Failed to read " + path, e);
+        }
+    }
+
+    private static final class StoredObject {
+        private final byte[] content;
+        private final String contentType;
+        private final Instant lastModified;
+
+        private StoredObject(byte[] content, String contentType, Instant lastModified) {
+            this.content = content;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+        }
+    }
+}
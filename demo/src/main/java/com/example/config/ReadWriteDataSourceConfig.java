@@ -0,0 +1,92 @@
+package com.example.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Splits the application DataSource into a writer pool (spring.datasource.*)
+ * and a reader pool (product.datasource.reader.*) when
+ * product.datasource.reader.enabled is set. The reader pool starts from the
+ * writer's spring.datasource.hikari settings, overridden by
+ * product.datasource.reader.hikari.*. Read-only transactions are routed to
+ * the reader while ReplicaLagMonitor reports it within its lag budget; all
+ * other work, including Flyway and non-transactional JDBC, uses the writer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.datasource.reader.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writerDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("writer");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource readerDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = DataSourceBuilder.create(properties.getClassLoader())
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(environment.getRequiredProperty("product.datasource.reader.url"))
+                .username(environment.getProperty("product.datasource.reader.username",
+                        properties.determineUsername()))
+                .password(environment.getProperty("product.datasource.reader.password",
+                        properties.determinePassword()))
+                .build();
+        dataSource.setPoolName("reader");
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        binder.bind("product.datasource.reader.hikari", Bindable.ofInstance(dataSource));
+        logger.info("Routing read-only transactions to reader {} (pool size {})",
+                dataSource.getJdbcUrl(), dataSource.getMaximumPoolSize());
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("writerDataSource") DataSource writer,
+            @Qualifier("readerDataSource") DataSource reader,
+            @Value("${product.datasource.reader.max-lag-ms:1500}") long maxLagMs) {
+        return new ReplicaLagMonitor(writer, reader, maxLagMs);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            @Qualifier("writerDataSource") DataSource writer,
+            @Qualifier("readerDataSource") DataSource reader,
+            ReplicaLagMonitor replicaLagMonitor) {
+        return new ReadWriteRoutingDataSource(writer, reader, replicaLagMonitor);
+    }
+
+    /**
+     * The DataSource everything else sees. Connections are fetched lazily so
+     * the routing decision is made after the transaction's read-only flag is
+     * bound, and transactions served entirely from caches take no connection.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
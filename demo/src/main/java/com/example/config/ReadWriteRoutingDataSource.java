@@ -0,0 +1,60 @@
+package com.example.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Sends connections for read-only transactions to the reader pool while the
+ * replica is within its lag budget, and everything else to the writer.
+ * The read-only flag is only bound once the transaction has begun, so this
+ * must sit behind a LazyConnectionDataSourceProxy that defers fetching the
+ * physical connection until the first statement.
+ */
+public final class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    static final String WRITER = "writer";
+    static final String READER = "reader";
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    private Counter writerRoutes;
+    private Counter readerRoutes;
+
+    public ReadWriteRoutingDataSource(DataSource writer, DataSource reader, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(WRITER, writer, READER, reader));
+        setDefaultTargetDataSource(writer);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean read = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && lagMonitor.isReplicaUsable();
+        Counter routes = read ? readerRoutes : writerRoutes;
+        if (routes != null) {
+            routes.increment();
+        }
+        return read ? READER : WRITER;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        writerRoutes = Counter.builder("product.datasource.routes")
+                .description("Physical connections fetched per target pool")
+                .tag("target", WRITER)
+                .register(registry);
+        readerRoutes = Counter.builder("product.datasource.routes")
+                .description("Physical connections fetched per target pool")
+                .tag("target", READER)
+                .register(registry);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Measures how far the read replica trails the writer. Every heartbeat the
+ * current time is written to the replica_heartbeat row on the writer and read
+ * back from the reader; the difference is the replica lag, rounded up by at
+ * most one heartbeat interval. The replica is usable while that lag is within
+ * max-lag-ms and the last successful check is no older than max-lag-ms, so a
+ * heartbeat stuck on a hung reader does not keep reads on it. Until the first
+ * successful check, and whenever a check fails, reads stay on the writer.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate writer;
+    private final JdbcTemplate reader;
+    private final long maxLagMs;
+
+    private volatile long lagMs = -1;
+    private volatile boolean usable;
+    // System.nanoTime() of the last successful read from the reader
+    private volatile long checkedAtNanos;
+
+    public ReplicaLagMonitor(DataSource writerDataSource, DataSource readerDataSource, long maxLagMs) {
+        this.writer = new JdbcTemplate(writerDataSource);
+        this.reader = new JdbcTemplate(readerDataSource);
+        // JDBC query timeouts are in whole seconds; a check slower than that is stale anyway
+        int queryTimeoutSeconds = (int) Math.max(1, (maxLagMs + 999) / 1000);
+        this.writer.setQueryTimeout(queryTimeoutSeconds);
+        this.reader.setQueryTimeout(queryTimeoutSeconds);
+        this.maxLagMs = maxLagMs;
+        logger.info("ReplicaLagMonitor initialized with max lag {} ms", maxLagMs);
+    }
+
+    @Scheduled(fixedDelayString = "${product.datasource.reader.heartbeat-interval-ms:500}")
+    public void heartbeat() {
+        try {
+            writer.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            logger.warn("Could not write replica heartbeat: {}", e.getMessage());
+        }
+        try {
+            Long beatAt = reader.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            checkedAtNanos = System.nanoTime();
+            update(beatAt == null || beatAt == 0 ? -1 : Math.max(0, System.currentTimeMillis() - beatAt));
+        } catch (DataAccessException e) {
+            if (usable) {
+                logger.warn("Read replica unavailable, routing reads to the writer: {}", e.getMessage());
+            }
+            update(-1);
+        }
+    }
+
+    private void update(long lag) {
+        boolean wasUsable = usable;
+        lagMs = lag;
+        usable = lag >= 0 && lag <= maxLagMs;
+        if (wasUsable && !usable && lag >= 0) {
+            logger.warn("Read replica lag {} ms exceeds {} ms, routing reads to the writer", lag, maxLagMs);
+        } else if (!wasUsable && usable) {
+            logger.info("Read replica lag {} ms, routing read-only transactions to the reader", lag);
+        }
+    }
+
+    /**
+     * Whether read-only transactions may currently be served by the replica:
+     * the last check found it within max-lag-ms and happened no longer than
+     * max-lag-ms ago.
+     */
+    public boolean isReplicaUsable() {
+        return usable && System.nanoTime() - checkedAtNanos <= maxLagMs * 1_000_000;
+    }
+
+    /**
+     * Last measured lag in milliseconds, or -1 if the replica could not be read.
+     */
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.datasource.reader.lag", this, monitor -> monitor.lagMs)
+                .description("Replica lag measured by the heartbeat row, or -1 when the reader cannot be read")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("product.datasource.reader.usable", this, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+                .description("1 while read-only transactions are routed to the reader")
+                .register(registry);
+    }
+}
@@ -1,34 +1,41 @@
 package com.example.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import org.springframework.web.servlet.HandlerInterceptor;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
 
 /**
  * Configuration for request logging
- * This class configures a request logging filter and an interceptor to log all incoming requests
- * and their processing time
+ * This class configures the per-request access log record and the sampled
+ * request payload logging filter
  */
 @Configuration
-public class RequestLoggingFilterConfig implements WebMvcConfigurer {
-    
-    private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilterConfig.class);
-    
+public class RequestLoggingFilterConfig {
+
+    /**
+     * One access log record per request, written to the "access" logger.
+     * Registered first so the duration covers every other filter.
+     */
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(
+            @Value("${product.logging.access.sample-rate:1.0}") double sampleRate,
+            @Value("${product.logging.access.slow-ms:1000}") long slowThresholdMs) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(sampleRate, slowThresholdMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
     /**
-     * Configure the CommonsRequestLoggingFilter to log request details
+     * Configure the request logging filter to log request details, including
+     * headers and payload, for a sample of requests at DEBUG level
      */
     @Bean
-    public CommonsRequestLoggingFilter requestLoggingFilter() {
-        CommonsRequestLoggingFilter filter = new CommonsRequestLoggingFilter();
+    public SampledRequestLoggingFilter requestLoggingFilter(
+            @Value("${product.logging.payload.sample-rate:1.0}") double sampleRate) {
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(sampleRate);
         filter.setIncludeQueryString(true);
         filter.setIncludePayload(true);
         filter.setMaxPayloadLength(10000);
@@ -36,45 +43,4 @@ public class RequestLoggingFilterConfig implements WebMvcConfigurer {
         filter.setAfterMessagePrefix("REQUEST DATA: ");
         return filter;
     }
-    
-    /**
-     * Add a custom interceptor to log request processing time
-     */
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new RequestProcessingTimeInterceptor());
-    }
-    
-    /**
-     * Custom interceptor to log request processing time
-     */
-    public class RequestProcessingTimeInterceptor implements HandlerInterceptor {
-        
-        private ThreadLocal<Long> startTimeThreadLocal = new ThreadLocal<>();
-        
-        @Override
-        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-            long startTime = System.currentTimeMillis();
-            startTimeThreadLocal.set(startTime);
-            logger.info("Request URL: {} started at {}", request.getRequestURL(), startTime);
-            return true;
-        }
-        
-        @Override
-        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, 
-                                   Object handler, Exception ex) {
-            long startTime = startTimeThreadLocal.get();
-            long endTime = System.currentTimeMillis();
-            long processingTime = endTime - startTime;
-            
-            logger.info("Request URL: {} | Status: {} | Time Taken: {} ms", 
-                      request.getRequestURL(), response.getStatus(), processingTime);
-            
-            if (ex != null) {
-                logger.error("Request URL: {} | Exception: {}", request.getRequestURL(), ex.getMessage(), ex);
-            }
-            
-            startTimeThreadLocal.remove();
-        }
-    }
 }
@@ -0,0 +1,68 @@
+package com.example.config;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Provides the S3Client used by S3Service and the S3AsyncClient used by the
+ * ProductMirror implementations. aws.s3.mode=aws (the default) talks to Amazon S3;
+ * aws.s3.mode=local keeps objects in memory, shared by both clients, and
+ * also on disk under aws.s3.local.dir when that is set.
+ */
+@Configuration
+public class S3Config {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3Config.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "aws", matchIfMissing = true)
+    public S3Client s3Client(@Value("${aws.region:us-east-1}") String regionName) {
+        Region region = Region.of(regionName);
+        logger.info("Initializing S3 client with region: {}", region.id());
+        return S3Client.builder()
+                .region(region)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "aws", matchIfMissing = true)
+    public S3AsyncClient s3AsyncClient(@Value("${aws.region:us-east-1}") String regionName,
+            @Value("${product.mirror.max-in-flight:64}") int maxInFlight) {
+        Region region = Region.of(regionName);
+        logger.info("Initializing S3 async client with region: {}", region.id());
+        return S3AsyncClient.builder()
+                .region(region)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxInFlight))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "local")
+    public InMemoryS3Client localS3Client(@Value("${aws.s3.local.dir:}") String directory) {
+        if (directory.isBlank()) {
+            logger.warn("Using in-memory S3 stand-in; objects are not persisted");
+            return new InMemoryS3Client();
+        }
+        logger.warn("Using local S3 stand-in; objects are kept in memory and under {}", directory);
+        return new InMemoryS3Client(Paths.get(directory));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "local")
+    public S3AsyncClient localS3AsyncClient(InMemoryS3Client localS3Client,
+            @Value("${aws.s3.local.latency-ms:0}") long latencyMs) {
+        return new InMemoryS3AsyncClient(localS3Client, Duration.ofMillis(latencyMs));
+    }
+}
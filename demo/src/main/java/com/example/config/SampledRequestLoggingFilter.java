@@ -0,0 +1,40 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.web.filter.CommonsRequestLoggingFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * CommonsRequestLoggingFilter that only looks at a sample of requests. The
+ * decision is made before the request is wrapped, so unsampled requests do
+ * not pay for payload buffering, and only the after-request message (which
+ * carries the payload) is written.
+ */
+public class SampledRequestLoggingFilter extends CommonsRequestLoggingFilter {
+
+    private final double sampleRate;
+
+    public SampledRequestLoggingFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!shouldLog(request) || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        super.doFilterInternal(request, response, filterChain);
+    }
+
+    @Override
+    protected void beforeRequest(HttpServletRequest request, String message) {
+    }
+}
@@ -4,11 +4,17 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,11 +22,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
 
+import com.example.model.BulkItemResult;
 import com.example.model.Product;
+import com.example.model.ProductChanges;
+import com.example.model.ProductDetail;
+import com.example.model.ProductPage;
+import com.example.model.ProductSummary;
+import com.example.model.StockAdjustment;
+import com.example.service.ProductChangeLog;
+import com.example.service.ProductETags;
+import com.example.service.ProductMirror;
 import com.example.service.ProductService;
 
 import jakarta.validation.Valid;
@@ -32,70 +53,242 @@ public class ProductController {
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     
     private final ProductService productService;
+    private final ProductMirror mirror;
+    private final ProductChangeLog changeLog;
+    private final ProductETags productETags;
+    private final CacheControl cacheControl;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductMirror mirror,
+            ProductChangeLog changeLog, ProductETags productETags,
+            @Value("${product.http.max-age-seconds:0}") long maxAgeSeconds) {
         this.productService = productService;
+        this.mirror = mirror;
+        this.changeLog = changeLog;
+        this.productETags = productETags;
+        this.cacheControl = maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS)
+                : CacheControl.noCache();
     }
 
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        logger.info("REST request to get all products");
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<List<ProductSummary>> getAllProducts(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to get products after id {}", after);
+        return pageResponse(ifNoneMatch, () -> productService.getAllProducts(after, limit));
     }
 
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        logger.debug("REST request to export all products");
+        StreamingResponseBody body = out -> productService.exportProducts(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * A conditional request whose tag still matches is answered with 304
+     * from the cached product or its updated_at column alone.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        logger.info("REST request to get product with id: {}", id);
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDetail> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to get product with id: {}", id);
+        if (ifNoneMatch != null) {
+            String current = productETags.forProduct(id);
+            if (ProductETags.matches(ifNoneMatch, current)) {
+                return notModified(current);
+            }
+        }
+        Product product = productService.getProductById(id);
+        return ResponseEntity.ok()
+                .eTag(ProductETags.of(product))
+                .cacheControl(cacheControl)
+                .body(ProductDetail.of(product));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        logger.info("REST request to search products with name containing: {}", name);
-        return ResponseEntity.ok(productService.searchByName(name));
+    public ResponseEntity<List<ProductSummary>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to search products with name containing: {}", name);
+        return pageResponse(ifNoneMatch, () -> productService.searchByName(name, after, limit));
     }
 
     @GetMapping("/price")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<List<ProductSummary>> getProductsByPriceRange(
             @RequestParam BigDecimal min, 
-            @RequestParam BigDecimal max) {
-        logger.info("REST request to get products with price between {} and {}", min, max);
-        return ResponseEntity.ok(productService.findByPriceRange(min, max));
+            @RequestParam BigDecimal max,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to get products with price between {} and {}", min, max);
+        return pageResponse(ifNoneMatch, () -> productService.findByPriceRange(min, max, after, limit));
     }
 
     @GetMapping("/in-stock")
-    public ResponseEntity<List<Product>> getProductsInStock() {
-        logger.info("REST request to get products in stock");
-        return ResponseEntity.ok(productService.findInStock());
+    public ResponseEntity<List<ProductSummary>> getProductsInStock(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to get products in stock");
+        return pageResponse(ifNoneMatch, () -> productService.findInStock(after, limit));
     }
 
     @PostMapping
-    public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
-        logger.info("REST request to create product: {}", product.getName());
-        return new ResponseEntity<>(productService.createProduct(product), HttpStatus.CREATED);
+    public ResponseEntity<ProductDetail> createProduct(@Valid @RequestBody Product product) {
+        logger.debug("REST request to create product: {}", product.getName());
+        return new ResponseEntity<>(ProductDetail.of(productService.createProduct(product)), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductDetail>> getProducts(
+            @RequestParam List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to bulk fetch {} products", ids.size());
+        String etag = listETag();
+        if (ProductETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(productService.getProducts(ids).stream().map(ProductDetail::of).toList());
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BulkItemResult>> createProducts(@RequestBody List<Product> products) {
+        logger.debug("REST request to bulk create {} products", products.size());
+        return ResponseEntity.ok(productService.createProducts(products));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<BulkItemResult>> updateProducts(@RequestBody List<Product> products) {
+        logger.debug("REST request to bulk update {} products", products.size());
+        return ResponseEntity.ok(productService.updateProducts(products));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BulkItemResult>> deleteProducts(@RequestBody List<Long> ids) {
+        logger.debug("REST request to bulk delete {} products", ids.size());
+        return ResponseEntity.ok(productService.deleteProducts(ids));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(
+    public ResponseEntity<ProductDetail> updateProduct(
             @PathVariable Long id, 
             @Valid @RequestBody Product productDetails) {
-        logger.info("REST request to update product with id: {}", id);
-        return ResponseEntity.ok(productService.updateProduct(id, productDetails));
+        logger.debug("REST request to update product with id: {}", id);
+        return ResponseEntity.ok(ProductDetail.of(productService.updateProduct(id, productDetails)));
+    }
+
+    /**
+     * Atomically add a delta to the product's stock. Answers 409 when a
+     * negative delta exceeds the stock on hand.
+     */
+    @PostMapping("/{id}/stock/adjust")
+    public ResponseEntity<ProductDetail> adjustStock(@PathVariable Long id, @RequestBody StockAdjustment adjustment) {
+        logger.debug("REST request to adjust stock of product {} by {}", id, adjustment.getDelta());
+        return ResponseEntity.ok(ProductDetail.of(productService.adjustStock(id, adjustment.getDelta())));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Boolean>> deleteProduct(@PathVariable Long id) {
-        logger.info("REST request to delete product with id: {}", id);
+        logger.debug("REST request to delete product with id: {}", id);
         productService.deleteProduct(id);
         Map<String, Boolean> response = new HashMap<>();
         response.put("deleted", true);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Committed changes after the given seq. Without since, or when there
+     * are none yet, the request waits up to timeoutMs for the next change.
+     * Answers 410 when since is older than the retained changes.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ProductChanges> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        logger.debug("REST request to get product changes after seq {}", since);
+        return changeLog.poll(since, limit, timeoutMs);
+    }
+
+    /**
+     * The same changes as a Server-Sent Events stream. A reconnecting
+     * client's Last-Event-ID takes precedence over since.
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        logger.debug("REST request to stream product changes after seq {}", lastEventId != null ? lastEventId : since);
+        return changeLog.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        logger.debug("REST request to get product cache statistics");
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    @GetMapping("/mirror/stats")
+    public ResponseEntity<Map<String, Object>> getMirrorStats() {
+        logger.debug("REST request to get S3 mirror statistics");
+        return ResponseEntity.ok(mirror.getStats());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
-        logger.info("Health check requested");
+        logger.debug("Health check requested");
         return ResponseEntity.ok("Service is up and running with Aurora MySQL connection and S3 integration!");
     }
+
+    /**
+     * Return the page items as the body and advertise the next page, if any,
+     * through a Link header (rel="next") and an X-Next-Cursor header. Pages
+     * that know their total size also carry X-Total-Count. The page is only
+     * queried when the client's If-None-Match does not match the list tag.
+     */
+    private ResponseEntity<List<ProductSummary>> pageResponse(String ifNoneMatch, Supplier<ProductPage> query) {
+        String etag = listETag();
+        if (ProductETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        ProductPage page = query.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl);
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+        }
+        if (page.getTotalCount() != null) {
+            response.header("X-Total-Count", String.valueOf(page.getTotalCount()));
+        }
+        return response.body(page.getItems());
+    }
+
+    // Tagged before the list is read, so the tag is never newer than the body
+    private String listETag() {
+        UriComponents uri = ServletUriComponentsBuilder.fromCurrentRequest().build();
+        return productETags.forList(uri.getPath() + "?" + uri.getQuery());
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
 }
@@ -0,0 +1,134 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import com.example.model.ProductSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Renders the rows of the products table from fragments/product-row.html
+ * and keeps the HTML of each row, keyed by id, updatedAt and stock. Any
+ * write moves updatedAt, and stock is part of the key because buffered
+ * adjustments change it without touching updatedAt, so a cached row never
+ * needs to be invalidated; stale ones age out by weight.
+ *
+ * Rows are rendered as products.html iterates over them, and the response
+ * is flushed before the first row and then every flush-rows rows, so the
+ * page head reaches the browser before the table is complete.
+ *
+ * The cache follows spring.thymeleaf.cache unless row-cache.enabled is set,
+ * so template edits show up without a restart in development.
+ */
+@Component
+public class ProductRowRenderer implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductRowRenderer.class);
+
+    private static final String ROW_TEMPLATE = "fragments/product-row";
+    private static final Set<String> ROW_SELECTOR = Set.of("row");
+
+    private final ITemplateEngine templateEngine;
+    private final JakartaServletWebApplication application;
+    private final Cache<RowKey, String> cache;
+    private final int flushRows;
+
+    public ProductRowRenderer(ITemplateEngine templateEngine, ServletContext servletContext,
+            @Value("${product.web.row-cache.enabled:${spring.thymeleaf.cache:true}}") boolean cacheEnabled,
+            @Value("${product.web.row-cache.max-bytes:16777216}") long maxBytes,
+            @Value("${product.web.flush-rows:100}") int flushRows) {
+        this.templateEngine = templateEngine;
+        this.application = JakartaServletWebApplication.buildApplication(servletContext);
+        this.cache = cacheEnabled
+                ? Caffeine.newBuilder()
+                        .maximumWeight(maxBytes)
+                        .weigher((RowKey key, String html) -> html.length() * 2)
+                        .recordStats()
+                        .build()
+                : null;
+        this.flushRows = Math.max(1, flushRows);
+        logger.info("ProductRowRenderer initialized with row cache {}, flushing every {} rows",
+                cacheEnabled ? "of " + maxBytes + " bytes" : "disabled", this.flushRows);
+    }
+
+    /**
+     * The HTML of each product's row, rendered or taken from the cache as
+     * the template iterates. Only valid for the current request.
+     */
+    public Iterable<String> rows(List<ProductSummary> products, HttpServletRequest request,
+            HttpServletResponse response) {
+        IWebExchange exchange = application.buildExchange(request, response);
+        Locale locale = request.getLocale();
+        return () -> new Iterator<>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < products.size();
+            }
+
+            @Override
+            public String next() {
+                if (next % flushRows == 0) {
+                    flush(response);
+                }
+                return row(products.get(next++), exchange, locale);
+            }
+        };
+    }
+
+    private String row(ProductSummary product, IWebExchange exchange, Locale locale) {
+        if (cache == null) {
+            return render(product, exchange, locale);
+        }
+        RowKey key = new RowKey(product.getId(), product.getUpdatedAt(), product.getStockQuantity());
+        return cache.get(key, ignored -> render(product, exchange, locale));
+    }
+
+    private String render(ProductSummary product, IWebExchange exchange, Locale locale) {
+        WebContext context = new WebContext(exchange, locale, Map.of("product", product));
+        return templateEngine.process(ROW_TEMPLATE, ROW_SELECTOR, context);
+    }
+
+    private static void flush(HttpServletResponse response) {
+        try {
+            response.getWriter().flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "product_rows");
+        }
+    }
+
+    private record RowKey(Long id, LocalDateTime updatedAt, Integer stockQuantity) {
+    }
+}
@@ -2,7 +2,6 @@ package com.example.controller;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +14,13 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.example.model.Product;
+import com.example.model.ProductPage;
 import com.example.service.ProductService;
 
 import jakarta.validation.Valid;
@@ -28,29 +31,32 @@ public class WebController {
     private static final Logger logger = LoggerFactory.getLogger(WebController.class);
     
     private final ProductService productService;
+    private final ProductRowRenderer rowRenderer;
     
     @Autowired
-    public WebController(ProductService productService) {
+    public WebController(ProductService productService, ProductRowRenderer rowRenderer) {
         this.productService = productService;
+        this.rowRenderer = rowRenderer;
     }
     
     @GetMapping("/")
     public String home(Model model) {
-        logger.info("Displaying home page");
+        logger.debug("Displaying home page");
         return "redirect:/products";
     }
     
     @GetMapping("/products")
-    public String getAllProducts(Model model) {
-        logger.info("Displaying all products");
-        List<Product> products = productService.getAllProducts();
-        model.addAttribute("products", products);
+    public String getAllProducts(@RequestParam(required = false) Long after,
+                                 @RequestParam(required = false) Integer limit,
+                                 Model model) {
+        logger.debug("Displaying products after id {}", after);
+        addPage(model, productService.getAllProducts(after, limit));
         return "products";
     }
     
     @GetMapping("/products/new")
     public String showNewProductForm(Model model) {
-        logger.info("Displaying new product form");
+        logger.debug("Displaying new product form");
         model.addAttribute("product", new Product());
         return "product-form";
     }
@@ -59,7 +65,7 @@ public class WebController {
     public String saveProduct(@Valid @ModelAttribute("product") Product product, 
                               BindingResult result, 
                               RedirectAttributes redirectAttributes) {
-        logger.info("Saving product: {}", product.getName());
+        logger.debug("Saving product: {}", product.getName());
         
         if (result.hasErrors()) {
             logger.warn("Validation errors occurred: {}", result.getAllErrors());
@@ -87,7 +93,7 @@ public class WebController {
     
     @GetMapping("/products/edit/{id}")
     public String showEditProductForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
-        logger.info("Displaying edit form for product id: {}", id);
+        logger.debug("Displaying edit form for product id: {}", id);
         
         try {
             Product product = productService.getProductById(id);
@@ -103,7 +109,7 @@ public class WebController {
     
     @GetMapping("/products/delete/{id}")
     public String deleteProduct(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        logger.info("Deleting product with id: {}", id);
+        logger.debug("Deleting product with id: {}", id);
         
         try {
             productService.deleteProduct(id);
@@ -119,10 +125,12 @@ public class WebController {
     }
     
     @GetMapping("/products/search")
-    public String searchProducts(@RequestParam String name, Model model) {
-        logger.info("Searching products with name containing: {}", name);
-        List<Product> products = productService.searchByName(name);
-        model.addAttribute("products", products);
+    public String searchProducts(@RequestParam String name,
+                                 @RequestParam(required = false) String after,
+                                 @RequestParam(required = false) Integer limit,
+                                 Model model) {
+        logger.debug("Searching products with name containing: {}", name);
+        addPage(model, productService.searchByName(name, after, limit));
         model.addAttribute("searchTerm", name);
         return "products";
     }
@@ -130,21 +138,36 @@ public class WebController {
     @GetMapping("/products/price-range")
     public String getProductsByPriceRange(@RequestParam BigDecimal min, 
                                          @RequestParam BigDecimal max, 
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) Integer limit,
                                          Model model) {
-        logger.info("Finding products with price between {} and {}", min, max);
-        List<Product> products = productService.findByPriceRange(min, max);
-        model.addAttribute("products", products);
+        logger.debug("Finding products with price between {} and {}", min, max);
+        addPage(model, productService.findByPriceRange(min, max, after, limit));
         model.addAttribute("minPrice", min);
         model.addAttribute("maxPrice", max);
         return "products";
     }
     
     @GetMapping("/products/in-stock")
-    public String getProductsInStock(Model model) {
-        logger.info("Finding products in stock");
-        List<Product> products = productService.findInStock();
-        model.addAttribute("products", products);
+    public String getProductsInStock(@RequestParam(required = false) Long after,
+                                     @RequestParam(required = false) Integer limit,
+                                     Model model) {
+        logger.debug("Finding products in stock");
+        addPage(model, productService.findInStock(after, limit));
         model.addAttribute("inStockOnly", true);
         return "products";
     }
+    
+    private void addPage(Model model, ProductPage page) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        model.addAttribute("products", page.getItems());
+        model.addAttribute("productRows",
+                rowRenderer.rows(page.getItems(), attributes.getRequest(), attributes.getResponse()));
+        model.addAttribute("totalCount", page.getTotalCount());
+        if (page.hasNext()) {
+            model.addAttribute("nextPageUrl", ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .toUriString());
+        }
+    }
 }
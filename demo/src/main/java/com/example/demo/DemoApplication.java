@@ -3,13 +3,19 @@ package com.example.demo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
-@ComponentScan(basePackages = "com.example")
+// The reactive variant in com.example.reactive is a separate application
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@ComponentScan(basePackages = "com.example", excludeFilters = @ComponentScan.Filter(
+		type = FilterType.REGEX, pattern = "com\\.example\\.reactive\\..*"))
 @EntityScan("com.example.model")
 @EnableJpaRepositories("com.example.repository")
+@EnableScheduling
 public class DemoApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,18 @@
+package com.example.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The requested change log position is older than the retained changes, so
+ * the consumer has to reload the catalog before following the log again.
+ */
+@ResponseStatus(value = HttpStatus.GONE)
+public class ChangesExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -31,6 +32,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
     
+    @ExceptionHandler({InsufficientStockException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<?> conflictException(RuntimeException ex, WebRequest request) {
+        logger.debug("Conflict: {}", ex.getMessage());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("message", ex.getMessage());
+        response.put("details", request.getDescription(false));
+        
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+    
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<?> changesExpiredException(ChangesExpiredException ex, WebRequest request) {
+        logger.debug("Changes expired: {}", ex.getMessage());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("message", ex.getMessage());
+        response.put("details", request.getDescription(false));
+        
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidationExceptions(MethodArgumentNotValidException ex) {
         logger.error("Validation error: {}", ex.getMessage());
@@ -45,6 +70,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
     
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> illegalArgumentException(IllegalArgumentException ex, WebRequest request) {
+        logger.debug("Bad request: {}", ex.getMessage());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("message", ex.getMessage());
+        response.put("details", request.getDescription(false));
+        
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> globalExceptionHandler(Exception ex, WebRequest request) {
         logger.error("Global exception: {}", ex.getMessage(), ex);
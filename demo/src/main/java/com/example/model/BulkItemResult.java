@@ -0,0 +1,53 @@
+package com.example.model;
+
+/**
+ * Outcome of one item in a bulk create, update or delete request. index is
+ * the item's position in the request body so callers can match results back
+ * to what they sent.
+ */
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    private final int index;
+    private final Long id;
+    private final Status status;
+    private final String message;
+
+    public BulkItemResult(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static BulkItemResult success(int index, Long id, Status status) {
+        return new BulkItemResult(index, id, status, null);
+    }
+
+    public static BulkItemResult failure(int index, Long id, Status status, String message) {
+        return new BulkItemResult(index, id, status, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate state of the products table: the row count and the latest
+ * updated_at. Every insert and update moves the latest timestamp and every
+ * delete changes the count, so the pair changes whenever the catalog does.
+ */
+public class CatalogVersion {
+
+    private final long productCount;
+    private final LocalDateTime lastUpdatedAt;
+
+    public CatalogVersion(long productCount, LocalDateTime lastUpdatedAt) {
+        this.productCount = productCount;
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * The latest updated_at in the table, or null when it is empty.
+     */
+    public LocalDateTime getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.model;
+
+/**
+ * The position of a row in a listing not ordered by id alone: the sort key
+ * it was ordered by (a search rank, a price in cents) and its id, which
+ * breaks ties. Sent to clients as "key:id" and passed back as "after", so
+ * a page resumes at the same place even if that row has since changed or
+ * been deleted.
+ */
+public final class KeysetCursor {
+
+    private final long key;
+    private final long id;
+
+    public KeysetCursor(long key, long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Parse a cursor from its "key:id" form.
+     *
+     * @throws IllegalArgumentException if the value is not a cursor
+     */
+    public static KeysetCursor parse(String value) {
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            return new KeysetCursor(Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof KeysetCursor cursor && cursor.key == key && cursor.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key) * 31 + Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return key + ":" + id;
+    }
+}
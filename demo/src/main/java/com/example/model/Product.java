@@ -2,16 +2,27 @@ package com.example.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.hibernate.annotations.ColumnDefault;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_updated_at", columnList = "updated_at"),
+    @Index(name = "idx_products_price", columnList = "price"),
+    @Index(name = "idx_products_stock_quantity", columnList = "stock_quantity")
+})
 public class Product {
 
     @Id
@@ -35,6 +46,12 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Checked and incremented by every update, so concurrent writers cannot overwrite each other
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Default constructor
     public Product() {
     }
@@ -51,6 +68,27 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * The current time at the microsecond precision of the timestamp columns,
+     * so the value held in memory matches the one read back from the database.
+     */
+    public static LocalDateTime timestamp() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    void onCreate() {
+        LocalDateTime now = timestamp();
+        createdAt = now;
+        updatedAt = now;
+    }
+
+    // Any flushed change moves updatedAt, which the HTTP ETag is derived from
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = timestamp();
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -108,6 +146,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Product{" +
@@ -118,6 +164,7 @@ public class Product {
                 ", stockQuantity=" + stockQuantity +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,58 @@
+package com.example.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed product change from the change log. seq increases with
+ * every change and is assigned when the change is written; product is the
+ * product as written, or null for deletions.
+ */
+public class ProductChange {
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+
+    private Long seq;
+    private final Type type;
+    private final Long productId;
+    private final LocalDateTime changedAt;
+    private ProductDetail product;
+
+    public ProductChange(Long seq, Type type, Long productId, LocalDateTime changedAt, ProductDetail product) {
+        this.seq = seq;
+        this.type = type;
+        this.productId = productId;
+        this.changedAt = changedAt;
+        this.product = product;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public ProductDetail getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDetail product) {
+        this.product = product;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.model;
+
+import java.util.List;
+
+/**
+ * A batch of changes from the change log in seq order. next is the seq to
+ * pass as "since" for the following batch; hasMore is true when further
+ * changes are already available.
+ */
+public class ProductChanges {
+
+    private final List<ProductChange> changes;
+    private final long next;
+    private final boolean hasMore;
+
+    public ProductChanges(List<ProductChange> changes, long next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    public static ProductChanges empty(long since) {
+        return new ProductChanges(List.of(), since, false);
+    }
+
+    public List<ProductChange> getChanges() {
+        return changes;
+    }
+
+    public long getNext() {
+        return next;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
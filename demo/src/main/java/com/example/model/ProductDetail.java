@@ -0,0 +1,70 @@
+package com.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A single product as returned by the API, decoupled from the entity that
+ * the cache and the persistence context hold.
+ */
+public class ProductDetail {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final Integer stockQuantity;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public ProductDetail(Long id, String name, String description, BigDecimal price, Integer stockQuantity,
+            LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    public static ProductDetail of(Product product) {
+        return new ProductDetail(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStockQuantity(), product.getCreatedAt(),
+                product.getUpdatedAt(), product.getVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
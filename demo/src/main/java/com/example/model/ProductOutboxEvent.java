@@ -0,0 +1,141 @@
+package com.example.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Pending S3 mirror operation for a product, written in the same transaction
+ * as the product change and removed once ProductMirrorDispatcher has applied it.
+ */
+@Entity
+@Table(name = "product_outbox", indexes = {
+    @Index(name = "idx_product_outbox_next_attempt", columnList = "next_attempt_at"),
+    @Index(name = "idx_product_outbox_product", columnList = "product_id")
+})
+public class ProductOutboxEvent {
+
+    public enum EventType {
+        UPSERT,
+        DELETE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 16)
+    private EventType eventType;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Default constructor
+    public ProductOutboxEvent() {
+    }
+
+    public ProductOutboxEvent(Long productId, EventType eventType) {
+        LocalDateTime now = LocalDateTime.now();
+        this.productId = productId;
+        this.eventType = eventType;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+
+    public static ProductOutboxEvent upsert(Long productId) {
+        return new ProductOutboxEvent(productId, EventType.UPSERT);
+    }
+
+    public static ProductOutboxEvent delete(Long productId) {
+        return new ProductOutboxEvent(productId, EventType.DELETE);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductOutboxEvent{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", eventType=" + eventType +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of product summaries from a keyset (cursor) query. nextCursor is
+ * the value to pass as "after" for the following page, or null when this is
+ * the last page: the last id for queries ordered by id, a KeysetCursor for
+ * the others.
+ */
+public class ProductPage {
+
+    private final List<ProductSummary> items;
+    private final String nextCursor;
+    private final Long totalCount;
+
+    public ProductPage(List<ProductSummary> items, String nextCursor) {
+        this(items, nextCursor, null);
+    }
+
+    public ProductPage(List<ProductSummary> items, String nextCursor, Long totalCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Build a page from a query that fetched up to limit + 1 rows; the extra
+     * row only signals that another page exists and is not returned.
+     */
+    public static ProductPage of(List<ProductSummary> rows, int limit) {
+        return of(rows, limit, row -> String.valueOf(row.getId()));
+    }
+
+    /**
+     * As of(rows, limit), with cursorOf giving the cursor that resumes after
+     * a row.
+     */
+    public static ProductPage of(List<ProductSummary> rows, int limit, Function<ProductSummary, String> cursorOf) {
+        if (rows.size() > limit) {
+            List<ProductSummary> items = rows.subList(0, limit);
+            return new ProductPage(items, cursorOf.apply(items.get(limit - 1)));
+        }
+        return new ProductPage(rows, null);
+    }
+
+    public List<ProductSummary> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Copy of this page carrying the total number of matching products.
+     */
+    public ProductPage withTotalCount(long totalCount) {
+        return new ProductPage(items, nextCursor, totalCount);
+    }
+
+    /**
+     * Total number of matching products across all pages, or null when the
+     * query did not compute it.
+     */
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a product's HTTP entity tag is derived from, read without
+ * loading the entity.
+ */
+public interface ProductStamp {
+
+    LocalDateTime getUpdatedAt();
+
+    Integer getStockQuantity();
+}
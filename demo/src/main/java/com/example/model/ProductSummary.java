@@ -0,0 +1,58 @@
+package com.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns a product listing shows. Queried as a DTO projection, so list
+ * pages neither read the description nor put entities in the persistence
+ * context.
+ */
+public class ProductSummary {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final Integer stockQuantity;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public ProductSummary(Long id, String name, BigDecimal price, Integer stockQuantity,
+            LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    public static ProductSummary of(Product product) {
+        return new ProductSummary(product.getId(), product.getName(), product.getPrice(),
+                product.getStockQuantity(), product.getUpdatedAt(), product.getVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
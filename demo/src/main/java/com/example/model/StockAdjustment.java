@@ -0,0 +1,25 @@
+package com.example.model;
+
+/**
+ * Request body for an atomic stock change: a positive delta restocks, a
+ * negative one takes stock (for example at checkout).
+ */
+public class StockAdjustment {
+
+    private Integer delta;
+
+    public StockAdjustment() {
+    }
+
+    public StockAdjustment(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.example.config.S3Config;
+import com.example.service.ProductJsonCodec;
+import com.example.service.S3RequestMetrics;
+
+/**
+ * Entry point of the reactive variant: the /api/products contract on
+ * WebFlux and Netty, with R2DBC for the database and S3AsyncClient for the
+ * mirror, so no request holds a thread while it waits on I/O. It runs from
+ * the same jar as DemoApplication with the "reactive" profile; see
+ * application-reactive.properties. Flyway still migrates the schema over
+ * JDBC at startup, but no JDBC pool is kept.
+ */
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+@Import({S3Config.class, S3RequestMetrics.class, ProductJsonCodec.class})
+@EnableScheduling
+public class ReactiveApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+
+    // Tomcat is on the classpath for the servlet application and would win otherwise
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
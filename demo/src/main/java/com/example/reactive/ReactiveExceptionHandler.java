@@ -0,0 +1,84 @@
+package com.example.reactive;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.exception.InsufficientStockException;
+import com.example.exception.ResourceNotFoundException;
+
+/**
+ * Error responses for the reactive controllers, with the same statuses and
+ * bodies as GlobalExceptionHandler.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<?> resourceNotFoundException(ResourceNotFoundException ex, ServerHttpRequest request) {
+        logger.error("Resource not found exception: {}", ex.getMessage());
+        return new ResponseEntity<>(body(ex, request), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({InsufficientStockException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<?> conflictException(RuntimeException ex, ServerHttpRequest request) {
+        logger.debug("Conflict: {}", ex.getMessage());
+        return new ResponseEntity<>(body(ex, request), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<?> handleValidationExceptions(WebExchangeBindException ex) {
+        logger.error("Validation error: {}", ex.getMessage());
+
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> illegalArgumentException(IllegalArgumentException ex, ServerHttpRequest request) {
+        logger.debug("Bad request: {}", ex.getMessage());
+        return new ResponseEntity<>(body(ex, request), HttpStatus.BAD_REQUEST);
+    }
+
+    // Unreadable bodies, bad parameters and unmapped paths keep their status
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<?> responseStatusException(ResponseStatusException ex, ServerHttpRequest request) {
+        logger.debug("Request failed: {}", ex.getMessage());
+        return new ResponseEntity<>(body(ex, request), ex.getStatusCode());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> globalExceptionHandler(Exception ex, ServerHttpRequest request) {
+        logger.error("Global exception: {}", ex.getMessage(), ex);
+        return new ResponseEntity<>(body(ex, request), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // The shape of WebRequest.getDescription(false) in the servlet responses
+    private static Map<String, Object> body(Exception ex, ServerHttpRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("message", ex.getMessage());
+        response.put("details", "uri=" + request.getURI().getPath());
+        return response;
+    }
+}
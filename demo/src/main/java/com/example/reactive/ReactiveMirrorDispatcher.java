@@ -0,0 +1,172 @@
+package com.example.reactive;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.example.service.ProductJsonCodec;
+import com.example.service.S3RequestMetrics;
+import com.example.service.S3Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Drains the product outbox to S3 for the reactive variant, writing one
+ * object per product as ProductMirrorPipeline does.
+ *
+ * Events are coalesced per product and leased like in
+ * ProductMirrorDispatcher, but the S3 calls are awaited: at most
+ * max-in-flight run at once and the next batch is only read once the
+ * current one has completed, so a slow S3 leaves work in the outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "product.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveMirrorDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveMirrorDispatcher.class);
+
+    private final ReactiveProductRepository productRepository;
+    private final S3AsyncClient s3AsyncClient;
+    private final ProductJsonCodec jsonCodec;
+    private final S3RequestMetrics metrics;
+    private final String bucketName;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public ReactiveMirrorDispatcher(ReactiveProductRepository productRepository,
+            S3AsyncClient s3AsyncClient,
+            ProductJsonCodec jsonCodec,
+            S3RequestMetrics metrics,
+            @Value("${data.bucket.name}") String bucketName,
+            @Value("${product.outbox.batch-size:100}") int batchSize,
+            @Value("${product.mirror.max-in-flight:64}") int maxInFlight,
+            @Value("${product.outbox.lease-ms:60000}") long leaseMs,
+            @Value("${product.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${product.outbox.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.productRepository = productRepository;
+        this.s3AsyncClient = s3AsyncClient;
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+        this.bucketName = bucketName;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+    }
+
+    // Spring calls this once and subscribes to the result on every run
+    @Scheduled(fixedDelayString = "${product.outbox.poll-interval-ms:500}")
+    public Mono<Void> dispatchPending() {
+        return dispatchBatch()
+                .expand(fetched -> fetched == batchSize ? dispatchBatch() : Mono.empty())
+                .onErrorResume(e -> {
+                    logger.warn("Dispatching the product outbox failed: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Mirror one batch of due events and acknowledge each in the outbox. The
+     * outbox is read anew on every subscription.
+     *
+     * @return the number of events read from the outbox
+     */
+    public Mono<Integer> dispatchBatch() {
+        return Mono.defer(() -> productRepository.findDueOutboxEvents(LocalDateTime.now(), batchSize)
+                .collectList()
+                .flatMap(events -> events.isEmpty() ? Mono.just(0) : dispatch(events)));
+    }
+
+    private Mono<Integer> dispatch(List<ProductOutboxEvent> events) {
+        // Events are ordered by id, so the last one seen per product wins
+        Map<Long, ProductOutboxEvent> latest = new LinkedHashMap<>();
+        Map<Long, Integer> attempts = new LinkedHashMap<>();
+        for (ProductOutboxEvent event : events) {
+            latest.put(event.getProductId(), event);
+            attempts.merge(event.getProductId(), event.getAttempts(), Math::max);
+        }
+        logger.debug("Dispatching {} outbox events for {} products", events.size(), latest.size());
+        return productRepository.leaseOutboxEvents(events.stream().map(ProductOutboxEvent::getId).toList(),
+                        LocalDateTime.now().plus(lease))
+                .thenMany(Flux.fromIterable(latest.values()).flatMap(event -> mirror(event)
+                        .then(productRepository.deleteDispatched(event.getProductId(), event.getId()))
+                        .onErrorResume(error -> {
+                            int attempt = attempts.get(event.getProductId()) + 1;
+                            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempt));
+                            logger.warn("Mirroring product {} to S3 failed (attempt {}), retrying at {}: {}",
+                                    event.getProductId(), attempt, nextAttemptAt, error.getMessage());
+                            return productRepository.markFailed(event.getProductId(), event.getId(),
+                                    nextAttemptAt, truncate(error.getMessage()));
+                        }), maxInFlight))
+                .then(Mono.just(events.size()));
+    }
+
+    private Mono<Void> mirror(ProductOutboxEvent event) {
+        if (event.getEventType() == ProductOutboxEvent.EventType.UPSERT) {
+            return productRepository.findById(event.getProductId())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(product -> product.isPresent()
+                            ? upsert(product.get())
+                            : delete(event.getProductId()));
+        }
+        return delete(event.getProductId());
+    }
+
+    private Mono<Void> upsert(Product product) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(S3Service.productKey(product.getId()))
+                .contentType("application/json")
+                .build();
+        return Mono.fromFuture(() -> {
+            // Encoded on the subscribing thread: the codec buffer is reused per thread
+            AsyncRequestBody body = AsyncRequestBody.fromByteBuffer(jsonCodec.encode(product));
+            return metrics.recordAsync("put", () -> s3AsyncClient.putObject(request, body));
+        }).then();
+    }
+
+    private Mono<Void> delete(Long productId) {
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(S3Service.productKey(productId))
+                .build();
+        return Mono.fromFuture(() -> metrics.recordAsync("delete", () -> s3AsyncClient.deleteObject(request)))
+                .then();
+    }
+
+    private Duration backoff(int attempt) {
+        int shift = Math.min(attempt - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
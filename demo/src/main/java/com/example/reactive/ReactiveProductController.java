@@ -0,0 +1,233 @@
+package com.example.reactive;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.example.model.Product;
+import com.example.model.ProductDetail;
+import com.example.model.ProductPage;
+import com.example.model.ProductSummary;
+import com.example.model.StockAdjustment;
+import com.example.service.ProductETags;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The /api/products contract of ProductController on WebFlux. Pages are at
+ * most max-limit rows and are collected so the Link, X-Next-Cursor and
+ * X-Total-Count headers can be sent ahead of the body; the export is
+ * streamed row by row with backpressure. Bulk writes, the change feed and
+ * the cache and mirror statistics are only served by the servlet
+ * application.
+ */
+@RestController
+@RequestMapping("/api/products")
+public class ReactiveProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductController.class);
+
+    private final ReactiveProductService productService;
+    private final CacheControl cacheControl;
+
+    public ReactiveProductController(ReactiveProductService productService,
+            @Value("${product.http.max-age-seconds:0}") long maxAgeSeconds) {
+        this.productService = productService;
+        this.cacheControl = maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS)
+                : CacheControl.noCache();
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<ProductSummary>>> getAllProducts(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        logger.debug("REST request to get products after id {}", after);
+        return pageResponse(request, ifNoneMatch, () -> productService.getAllProducts(after, limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Product> exportProducts() {
+        logger.debug("REST request to export all products");
+        return productService.exportProducts();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductDetail>> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("REST request to get product with id: {}", id);
+        return productService.getProductById(id).map(product -> {
+            String etag = ProductETags.of(product);
+            if (ProductETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .body(ProductDetail.of(product));
+        });
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<ProductSummary>>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        logger.debug("REST request to search products with name containing: {}", name);
+        return pageResponse(request, ifNoneMatch, () -> productService.searchByName(name, after, limit));
+    }
+
+    @GetMapping("/price")
+    public Mono<ResponseEntity<List<ProductSummary>>> getProductsByPriceRange(
+            @RequestParam BigDecimal min,
+            @RequestParam BigDecimal max,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        logger.debug("REST request to get products with price between {} and {}", min, max);
+        return pageResponse(request, ifNoneMatch, () -> productService.findByPriceRange(min, max, after, limit));
+    }
+
+    @GetMapping("/in-stock")
+    public Mono<ResponseEntity<List<ProductSummary>>> getProductsInStock(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        logger.debug("REST request to get products in stock");
+        return pageResponse(request, ifNoneMatch, () -> productService.findInStock(after, limit));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<ProductDetail>> createProduct(@Valid @RequestBody Product product) {
+        logger.debug("REST request to create product: {}", product.getName());
+        return productService.createProduct(product)
+                .map(created -> new ResponseEntity<>(ProductDetail.of(created), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/batch")
+    public Mono<ResponseEntity<List<ProductDetail>>> getProducts(
+            @RequestParam List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        logger.debug("REST request to bulk fetch {} products", ids.size());
+        return productService.listETag(pathAndQuery(request)).flatMap(etag -> {
+            if (ProductETags.matches(ifNoneMatch, etag)) {
+                return Mono.just(notModified(etag));
+            }
+            return productService.getProducts(ids)
+                    .map(ProductDetail::of)
+                    .collectList()
+                    .map(products -> ResponseEntity.ok()
+                            .eTag(etag)
+                            .cacheControl(cacheControl)
+                            .body(products));
+        });
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ProductDetail>> updateProduct(
+            @PathVariable Long id,
+            @Valid @RequestBody Product productDetails) {
+        logger.debug("REST request to update product with id: {}", id);
+        return productService.updateProduct(id, productDetails)
+                .map(product -> ResponseEntity.ok(ProductDetail.of(product)));
+    }
+
+    /**
+     * Atomically add a delta to the product's stock. Answers 409 when a
+     * negative delta exceeds the stock on hand.
+     */
+    @PostMapping("/{id}/stock/adjust")
+    public Mono<ResponseEntity<ProductDetail>> adjustStock(@PathVariable Long id,
+            @RequestBody StockAdjustment adjustment) {
+        logger.debug("REST request to adjust stock of product {} by {}", id, adjustment.getDelta());
+        return productService.adjustStock(id, adjustment.getDelta())
+                .map(product -> ResponseEntity.ok(ProductDetail.of(product)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, Boolean>>> deleteProduct(@PathVariable Long id) {
+        logger.debug("REST request to delete product with id: {}", id);
+        return productService.deleteProduct(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(Map.of("deleted", true))));
+    }
+
+    @GetMapping("/health")
+    public Mono<ResponseEntity<String>> healthCheck() {
+        logger.debug("Health check requested");
+        return Mono.just(ResponseEntity.ok("Service is up and running with Aurora MySQL connection and S3 integration!"));
+    }
+
+    /**
+     * Return the page items as the body and advertise the next page, if any,
+     * as ProductController does. The page is only queried when the client's
+     * If-None-Match does not match the list tag, which is computed first.
+     */
+    private Mono<ResponseEntity<List<ProductSummary>>> pageResponse(ServerHttpRequest request, String ifNoneMatch,
+            Supplier<Mono<ProductPage>> query) {
+        return productService.listETag(pathAndQuery(request)).flatMap(etag -> {
+            if (ProductETags.matches(ifNoneMatch, etag)) {
+                return Mono.just(notModified(etag));
+            }
+            return query.get().map(page -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .eTag(etag)
+                        .cacheControl(cacheControl);
+                if (page.hasNext()) {
+                    String next = UriComponentsBuilder.fromUri(request.getURI())
+                            .replaceQueryParam("after", page.getNextCursor())
+                            .toUriString();
+                    response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+                }
+                if (page.getTotalCount() != null) {
+                    response.header("X-Total-Count", String.valueOf(page.getTotalCount()));
+                }
+                return response.body(page.getItems());
+            });
+        });
+    }
+
+    private static String pathAndQuery(ServerHttpRequest request) {
+        return request.getURI().getPath() + "?" + request.getURI().getQuery();
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.reactive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.example.model.CatalogVersion;
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.model.ProductChange;
+import com.example.model.ProductOutboxEvent;
+import com.example.model.ProductSummary;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the products, product_outbox and product_changes tables
+ * for the reactive variant, with the same queries as the JPA repositories.
+ * Rows are mapped by hand onto the shared model classes, which stay JPA
+ * entities for the servlet application.
+ */
+@Repository
+public class ReactiveProductRepository {
+
+    private static final String SUMMARY_COLUMNS = "id, name, price, stock_quantity, updated_at, version";
+
+    private static final String PRODUCT_COLUMNS =
+            "id, name, description, price, stock_quantity, created_at, updated_at, version";
+
+    // The rank of ProductSearchIndex: exact name, name prefix, word prefix, substring, description only
+    private static final String SEARCH_RANK =
+            "CASE WHEN LOWER(TRIM(name)) = :term THEN 4 WHEN LOWER(TRIM(name)) LIKE :prefix THEN 3 "
+            + "WHEN REGEXP_LIKE(LOWER(TRIM(name)), :wordPrefix) THEN 2 WHEN LOWER(name) LIKE :pattern THEN 1 ELSE 0 END";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<ProductSummary> findPage(long after, int rows) {
+        return databaseClient.sql("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE id > :after "
+                        + "ORDER BY id LIMIT :rows")
+                .bind("after", after)
+                .bind("rows", rows)
+                .map(ReactiveProductRepository::summary)
+                .all();
+    }
+
+    /**
+     * Products whose name (or description) contains the normalized term,
+     * ranked and paged as ProductBatchRepositoryImpl.searchRanked does, each
+     * with its (rank, id) cursor. The patterns are escaped with the
+     * database's default LIKE escape character, a backslash.
+     */
+    public Flux<RankedSummary> searchRanked(String term, boolean description, boolean fullText,
+            KeysetCursor after, int rows) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        StringBuilder sql = new StringBuilder("SELECT ").append(SUMMARY_COLUMNS).append(", score FROM (SELECT ")
+                .append(SUMMARY_COLUMNS).append(", ").append(SEARCH_RANK).append(" AS score FROM products WHERE ");
+        if (fullText) {
+            sql.append(description ? "MATCH(name, description)" : "MATCH(name)")
+                    .append(" AGAINST (:fullText IN BOOLEAN MODE) AND ");
+        }
+        sql.append(description ? "(LOWER(name) LIKE :pattern OR LOWER(description) LIKE :pattern)"
+                : "LOWER(name) LIKE :pattern");
+        sql.append(") matches");
+        if (after != null) {
+            sql.append(" WHERE score < :afterRank OR (score = :afterRank AND id > :afterId)");
+        }
+        sql.append(" ORDER BY score DESC, id LIMIT :rows");
+        GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("term", term)
+                .bind("prefix", escaped + "%")
+                .bind("wordPrefix", "[^\\p{L}\\p{Nd}]" + Pattern.quote(term))
+                .bind("pattern", "%" + escaped + "%")
+                .bind("rows", rows);
+        if (fullText) {
+            spec = spec.bind("fullText", '"' + term.replace('"', ' ').trim() + '"');
+        }
+        if (after != null) {
+            spec = spec.bind("afterRank", after.getKey()).bind("afterId", after.getId());
+        }
+        return spec.map(row -> new RankedSummary(summary(row),
+                        new KeysetCursor(row.get("score", Number.class).longValue(), row.get("id", Long.class))))
+                .all();
+    }
+
+    /**
+     * Products priced within [min, max] in price order, then id, after the
+     * given (price, id) position; pass (min, Long.MIN_VALUE) for the first
+     * page. As ProductRepository.findPriceRangePage.
+     */
+    public Flux<ProductSummary> findPageByPrice(BigDecimal min, BigDecimal max, BigDecimal afterPrice, long afterId,
+            int rows) {
+        return databaseClient.sql("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE price BETWEEN :min AND :max "
+                        + "AND (price > :afterPrice OR (price = :afterPrice AND id > :afterId)) "
+                        + "ORDER BY price, id LIMIT :rows")
+                .bind("min", min)
+                .bind("max", max)
+                .bind("afterPrice", afterPrice)
+                .bind("afterId", afterId)
+                .bind("rows", rows)
+                .map(ReactiveProductRepository::summary)
+                .all();
+    }
+
+    public Mono<Long> countByPrice(BigDecimal min, BigDecimal max) {
+        return databaseClient.sql("SELECT COUNT(*) FROM products WHERE price BETWEEN :min AND :max")
+                .bind("min", min)
+                .bind("max", max)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Flux<ProductSummary> findPageInStock(long after, int rows) {
+        return databaseClient.sql("SELECT " + SUMMARY_COLUMNS + " FROM products WHERE id > :after "
+                        + "AND stock_quantity > 0 ORDER BY id LIMIT :rows")
+                .bind("after", after)
+                .bind("rows", rows)
+                .map(ReactiveProductRepository::summary)
+                .all();
+    }
+
+    public Mono<Product> findById(Long id) {
+        return databaseClient.sql("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::product)
+                .one();
+    }
+
+    public Flux<Product> findAllById(Collection<Long> ids) {
+        return databaseClient.sql("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveProductRepository::product)
+                .all();
+    }
+
+    /**
+     * Every product in id order. Rows are requested from the driver as the
+     * subscriber demands them, fetchSize at a time where the driver supports
+     * cursor fetches.
+     */
+    public Flux<Product> streamAll(int fetchSize) {
+        return databaseClient.sql("SELECT " + PRODUCT_COLUMNS + " FROM products ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveProductRepository::product)
+                .all();
+    }
+
+    public Mono<CatalogVersion> findCatalogVersion() {
+        return databaseClient.sql("SELECT COUNT(*), MAX(updated_at) FROM products")
+                .map(row -> new CatalogVersion(row.get(0, Long.class), row.get(1, LocalDateTime.class)))
+                .one();
+    }
+
+    /**
+     * Insert the product with version 0 and assign the generated id onto it.
+     */
+    public Mono<Product> insert(Product product) {
+        GenericExecuteSpec spec = databaseClient.sql("INSERT INTO products "
+                        + "(name, description, price, stock_quantity, created_at, updated_at, version) "
+                        + "VALUES (:name, :description, :price, :stockQuantity, :createdAt, :updatedAt, 0)")
+                .bind("name", product.getName())
+                .bind("price", product.getPrice())
+                .bind("createdAt", product.getCreatedAt())
+                .bind("updatedAt", product.getUpdatedAt());
+        spec = bindNullable(spec, "description", product.getDescription(), String.class);
+        spec = bindNullable(spec, "stockQuantity", product.getStockQuantity(), Integer.class);
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(id -> {
+                    product.setId(id);
+                    product.setVersion(0L);
+                    return product;
+                });
+    }
+
+    /**
+     * Write the product's fields if it is still at the given version, moving
+     * the version on by one.
+     *
+     * @return the number of rows updated, 0 when the version has moved
+     */
+    public Mono<Long> update(Product product, long expectedVersion) {
+        GenericExecuteSpec spec = databaseClient.sql("UPDATE products SET name = :name, "
+                        + "description = :description, price = :price, stock_quantity = :stockQuantity, "
+                        + "updated_at = :updatedAt, version = version + 1 WHERE id = :id AND version = :version")
+                .bind("name", product.getName())
+                .bind("price", product.getPrice())
+                .bind("updatedAt", product.getUpdatedAt())
+                .bind("id", product.getId())
+                .bind("version", expectedVersion);
+        spec = bindNullable(spec, "description", product.getDescription(), String.class);
+        spec = bindNullable(spec, "stockQuantity", product.getStockQuantity(), Integer.class);
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Add delta to the stock unless that would take it below zero.
+     *
+     * @return the number of rows updated, 0 when the product is missing or short
+     */
+    public Mono<Long> adjustStock(Long id, int delta, LocalDateTime updatedAt) {
+        return databaseClient.sql("UPDATE products SET stock_quantity = COALESCE(stock_quantity, 0) + :delta, "
+                        + "version = version + 1, updated_at = :updatedAt "
+                        + "WHERE id = :id AND COALESCE(stock_quantity, 0) + :delta >= 0")
+                .bind("delta", delta)
+                .bind("updatedAt", updatedAt)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM products WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Void> insertOutboxEvent(ProductOutboxEvent event) {
+        return databaseClient.sql("INSERT INTO product_outbox "
+                        + "(product_id, event_type, created_at, attempts, next_attempt_at) "
+                        + "VALUES (:productId, :eventType, :createdAt, 0, :nextAttemptAt)")
+                .bind("productId", event.getProductId())
+                .bind("eventType", event.getEventType().name())
+                .bind("createdAt", event.getCreatedAt())
+                .bind("nextAttemptAt", event.getNextAttemptAt())
+                .then();
+    }
+
+    public Mono<Void> insertChange(Long productId, ProductChange.Type type, LocalDateTime changedAt) {
+        return databaseClient.sql("INSERT INTO product_changes (product_id, change_type, changed_at) "
+                        + "VALUES (:productId, :changeType, :changedAt)")
+                .bind("productId", productId)
+                .bind("changeType", type.name())
+                .bind("changedAt", changedAt)
+                .then();
+    }
+
+    public Flux<ProductOutboxEvent> findDueOutboxEvents(LocalDateTime now, int limit) {
+        return databaseClient.sql("SELECT id, product_id, event_type, created_at, attempts, next_attempt_at "
+                        + "FROM product_outbox WHERE next_attempt_at <= :now ORDER BY id LIMIT :limit")
+                .bind("now", now)
+                .bind("limit", limit)
+                .map(ReactiveProductRepository::outboxEvent)
+                .all();
+    }
+
+    /**
+     * Push the events' next attempt out to the given time while their
+     * dispatch is in flight; see ProductOutboxRepository.lease.
+     */
+    public Mono<Long> leaseOutboxEvents(Collection<Long> ids, LocalDateTime until) {
+        return databaseClient.sql("UPDATE product_outbox SET next_attempt_at = :until WHERE id IN (:ids)")
+                .bind("until", until)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteDispatched(Long productId, Long maxId) {
+        return databaseClient.sql("DELETE FROM product_outbox WHERE product_id = :productId AND id <= :maxId")
+                .bind("productId", productId)
+                .bind("maxId", maxId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> markFailed(Long productId, Long maxId, LocalDateTime nextAttemptAt, String lastError) {
+        GenericExecuteSpec spec = databaseClient.sql("UPDATE product_outbox SET attempts = attempts + 1, "
+                        + "next_attempt_at = :nextAttemptAt, last_error = :lastError "
+                        + "WHERE product_id = :productId AND id <= :maxId")
+                .bind("nextAttemptAt", nextAttemptAt)
+                .bind("productId", productId)
+                .bind("maxId", maxId);
+        return bindNullable(spec, "lastError", lastError, String.class).fetch().rowsUpdated();
+    }
+
+    private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, Object value,
+            Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static ProductSummary summary(Readable row) {
+        return new ProductSummary(row.get("id", Long.class), row.get("name", String.class),
+                row.get("price", BigDecimal.class), row.get("stock_quantity", Integer.class),
+                row.get("updated_at", LocalDateTime.class), row.get("version", Long.class));
+    }
+
+    private static Product product(Readable row) {
+        Product product = new Product(row.get("id", Long.class), row.get("name", String.class),
+                row.get("description", String.class), row.get("price", BigDecimal.class),
+                row.get("stock_quantity", Integer.class), row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+
+    /**
+     * A search match with its position in the ranked order.
+     */
+    public record RankedSummary(ProductSummary summary, KeysetCursor cursor) {
+    }
+
+    private static ProductOutboxEvent outboxEvent(Readable row) {
+        ProductOutboxEvent event = new ProductOutboxEvent(row.get("product_id", Long.class),
+                ProductOutboxEvent.EventType.valueOf(row.get("event_type", String.class)));
+        event.setId(row.get("id", Long.class));
+        event.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        event.setAttempts(row.get("attempts", Integer.class));
+        event.setNextAttemptAt(row.get("next_attempt_at", LocalDateTime.class));
+        return event;
+    }
+}
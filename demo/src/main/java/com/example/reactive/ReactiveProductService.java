@@ -0,0 +1,382 @@
+package com.example.reactive;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.example.exception.InsufficientStockException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.model.ProductChange;
+import com.example.model.ProductOutboxEvent;
+import com.example.model.ProductPage;
+import com.example.model.ProductSummary;
+import com.example.reactive.ReactiveProductRepository.RankedSummary;
+import com.example.service.ProductETags;
+import com.example.service.ProductPriceIndex;
+import com.example.service.ProductSearchIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * The product operations of ProductService on R2DBC. Pages, limits,
+ * validation and write conflicts behave as in the servlet application, and
+ * every write adds its product_outbox and product_changes rows in the same
+ * transaction.
+ *
+ * There is no product cache, search or price index, stock buffer or S3 read
+ * fallback here: every read is a keyset query against the database, which
+ * keeps the variant comparable with the servlet stack under the same load.
+ * Search and price pages are ordered and keyed as the servlet ones, so
+ * their cursors work on either stack.
+ */
+@Service
+public class ReactiveProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductService.class);
+
+    // ngram_token_size of the FULLTEXT parser; shorter queries cannot use the index
+    private static final int FULL_TEXT_MIN_LENGTH = 2;
+
+    private final ReactiveProductRepository productRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+    private final int exportFetchSize;
+    private final int maxWriteAttempts;
+    private final long catalogVersionTtlNanos;
+    private final boolean fullTextSearch;
+    private final boolean searchDescription;
+
+    // Bumped on every committed write; a version read across a bump is not kept
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CachedVersion catalogVersion;
+
+    public ReactiveProductService(ReactiveProductRepository productRepository,
+            TransactionalOperator transactionalOperator,
+            @Value("${product.page.default-limit:50}") int defaultPageLimit,
+            @Value("${product.page.max-limit:500}") int maxPageLimit,
+            @Value("${product.export.flush-rows:500}") int exportFetchSize,
+            @Value("${product.write.max-attempts:3}") int maxWriteAttempts,
+            @Value("${product.http.catalog-version-ttl-ms:1000}") long catalogVersionTtlMs,
+            @Value("${product.search.full-text:true}") boolean fullTextSearch,
+            @Value("${product.search.index-description:false}") boolean searchDescription) {
+        this.productRepository = productRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+        this.exportFetchSize = exportFetchSize;
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.catalogVersionTtlNanos = catalogVersionTtlMs * 1_000_000;
+        this.fullTextSearch = fullTextSearch;
+        this.searchDescription = searchDescription;
+    }
+
+    public Mono<ProductPage> getAllProducts(Long after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Fetching products after id {} (limit {})", after, pageSize);
+        return productRepository.findPage(cursor(after), pageSize + 1)
+                .collectList()
+                .map(rows -> ProductPage.of(rows, pageSize));
+    }
+
+    /**
+     * Products whose name contains the given text, best matches first and
+     * then by id, ranked as ProductService ranks them, so a rank:id cursor
+     * from either stack pages the other.
+     */
+    public Mono<ProductPage> searchByName(String name, String after, Integer limit) {
+        return Mono.defer(() -> {
+            int pageSize = resolveLimit(limit);
+            logger.debug("Searching products with name containing: {} after {} (limit {})", name, after, pageSize);
+            String term = ProductSearchIndex.normalize(name);
+            if (term.length() < ProductSearchIndex.MIN_QUERY_LENGTH) {
+                return Mono.error(new IllegalArgumentException(
+                        "name must be at least " + ProductSearchIndex.MIN_QUERY_LENGTH + " characters"));
+            }
+            KeysetCursor cursor = after != null ? KeysetCursor.parse(after) : null;
+            boolean fullText = fullTextSearch && term.replace('"', ' ').trim().length() >= FULL_TEXT_MIN_LENGTH;
+            return productRepository.searchRanked(term, searchDescription, fullText, cursor, pageSize + 1)
+                    .collectList()
+                    .map(matches -> {
+                        Map<Long, KeysetCursor> positions = new HashMap<>();
+                        List<ProductSummary> rows = new ArrayList<>(matches.size());
+                        for (RankedSummary match : matches) {
+                            positions.put(match.cursor().getId(), match.cursor());
+                            rows.add(match.summary());
+                        }
+                        return ProductPage.of(rows, pageSize, row -> positions.get(row.getId()).toString());
+                    });
+        });
+    }
+
+    /**
+     * Products priced within [min, max], ordered by price and then id, with
+     * the total match count. The bounds are rounded inwards to whole cents
+     * and the cursors are cents:id, as in ProductService. The page and the
+     * count are queried concurrently.
+     */
+    public Mono<ProductPage> findByPriceRange(BigDecimal min, BigDecimal max, String after, Integer limit) {
+        return Mono.defer(() -> {
+            int pageSize = resolveLimit(limit);
+            logger.debug("Finding products with price between {} and {} after {} (limit {})", min, max, after,
+                    pageSize);
+            long minCents = ProductPriceIndex.toCents(min, RoundingMode.CEILING);
+            long maxCents = ProductPriceIndex.toCents(max, RoundingMode.FLOOR);
+            KeysetCursor cursor = after != null ? KeysetCursor.parse(after) : null;
+            if (minCents > maxCents) {
+                return Mono.just(new ProductPage(new ArrayList<>(), null, 0L));
+            }
+            BigDecimal lowest = BigDecimal.valueOf(minCents, 2);
+            BigDecimal highest = BigDecimal.valueOf(maxCents, 2);
+            Flux<ProductSummary> page = cursor != null
+                    ? productRepository.findPageByPrice(lowest, highest, BigDecimal.valueOf(cursor.getKey(), 2),
+                            cursor.getId(), pageSize + 1)
+                    : productRepository.findPageByPrice(lowest, highest, lowest, Long.MIN_VALUE, pageSize + 1);
+            return Mono.zip(page.collectList(), productRepository.countByPrice(lowest, highest))
+                    .map(result -> ProductPage.of(result.getT1(), pageSize,
+                                    row -> new KeysetCursor(ProductPriceIndex.toCents(row.getPrice(),
+                                            RoundingMode.HALF_UP), row.getId()).toString())
+                            .withTotalCount(result.getT2()));
+        });
+    }
+
+    public Mono<ProductPage> findInStock(Long after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Finding products in stock after id {} (limit {})", after, pageSize);
+        return productRepository.findPageInStock(cursor(after), pageSize + 1)
+                .collectList()
+                .map(rows -> ProductPage.of(rows, pageSize));
+    }
+
+    /**
+     * Every product in id order, read as the subscriber requests them, so
+     * a slow client holds back the query instead of filling memory.
+     */
+    public Flux<Product> exportProducts() {
+        logger.debug("Exporting all products as NDJSON");
+        return productRepository.streamAll(exportFetchSize);
+    }
+
+    public Mono<Product> getProductById(Long id) {
+        logger.debug("Fetching product with id: {}", id);
+        return productRepository.findById(id).switchIfEmpty(notFound(id));
+    }
+
+    /**
+     * The given products in the order of ids, skipping any that do not exist.
+     */
+    public Flux<Product> getProducts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return productRepository.findAllById(new LinkedHashSet<>(ids))
+                .collectMap(Product::getId)
+                .flatMapIterable(found -> ids.stream().map(found::get).filter(product -> product != null).toList());
+    }
+
+    public Mono<Product> createProduct(Product product) {
+        logger.debug("Creating new product: {}", product.getName());
+        String error = validate(product);
+        if (error != null) {
+            return Mono.error(new IllegalArgumentException(error));
+        }
+        LocalDateTime now = Product.timestamp();
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+        return write(productRepository.insert(product)
+                .flatMap(saved -> recordChange(saved.getId(), ProductChange.Type.UPSERT).thenReturn(saved)))
+                .doOnNext(saved -> logger.info("Product saved to database with ID: {}", saved.getId()));
+    }
+
+    /**
+     * Replace a product's fields. When the caller passes the version it read,
+     * the update only applies if the product is still at that version.
+     * Otherwise a concurrent write is retried against the fresh row, as if
+     * the two writes had run one after the other.
+     */
+    public Mono<Product> updateProduct(Long id, Product productDetails) {
+        logger.debug("Updating product with id: {}", id);
+        String error = validate(productDetails);
+        if (error != null) {
+            return Mono.error(new IllegalArgumentException(error));
+        }
+        Mono<Product> update = write(productRepository.findById(id)
+                .switchIfEmpty(notFound(id))
+                .flatMap(product -> applyUpdate(product, productDetails)));
+        return productDetails.getVersion() != null ? update : retryOnConflict(update);
+    }
+
+    private Mono<Product> applyUpdate(Product product, Product productDetails) {
+        long version = product.getVersion();
+        if (productDetails.getVersion() != null && productDetails.getVersion() != version) {
+            return Mono.error(new OptimisticLockingFailureException("Product " + product.getId()
+                    + " is at version " + version + ", not " + productDetails.getVersion()));
+        }
+        product.setName(productDetails.getName());
+        product.setDescription(productDetails.getDescription());
+        product.setPrice(productDetails.getPrice());
+        product.setStockQuantity(productDetails.getStockQuantity());
+        product.setUpdatedAt(Product.timestamp());
+        return productRepository.update(product, version).flatMap(updated -> {
+            if (updated == 0) {
+                return Mono.error(new OptimisticLockingFailureException(
+                        "Product " + product.getId() + " was changed concurrently"));
+            }
+            product.setVersion(version + 1);
+            logger.info("Product {} updated in database", product.getId());
+            return recordChange(product.getId(), ProductChange.Type.UPSERT).thenReturn(product);
+        });
+    }
+
+    /**
+     * Add delta to a product's stock with a single conditional UPDATE, never
+     * going below zero. The outbox row is written first so the product row
+     * is locked only from the UPDATE to the commit; lock timeouts and
+     * deadlocks are retried.
+     *
+     * @throws InsufficientStockException if the product has less than -delta in stock
+     */
+    public Mono<Product> adjustStock(Long id, Integer delta) {
+        if (delta == null || delta == 0) {
+            return Mono.error(new IllegalArgumentException("delta must be a non-zero integer"));
+        }
+        logger.debug("Adjusting stock of product {} by {}", id, delta);
+        return retryOnConflict(write(productRepository.insertOutboxEvent(ProductOutboxEvent.upsert(id))
+                .then(productRepository.adjustStock(id, delta, Product.timestamp()))
+                .flatMap(updated -> updated == 0
+                        ? productRepository.findById(id)
+                                .switchIfEmpty(notFound(id))
+                                .flatMap(product -> Mono.<Product>error(new InsufficientStockException(
+                                        "Insufficient stock for product " + id + " to apply a change of " + delta)))
+                        : productRepository.findById(id).switchIfEmpty(notFound(id)))
+                .flatMap(product -> productRepository.insertChange(id, ProductChange.Type.UPSERT,
+                        product.getUpdatedAt()).thenReturn(product))));
+    }
+
+    public Mono<Void> deleteProduct(Long id) {
+        logger.debug("Deleting product with id: {}", id);
+        return write(productRepository.deleteById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? notFound(id).then()
+                        : recordChange(id, ProductChange.Type.DELETE)))
+                .doOnSuccess(ignored -> logger.info("Product {} deleted from database", id));
+    }
+
+    /**
+     * The entity tag of a list response; see ProductETags.forList. Only
+     * writes made through this instance discard the cached catalog version
+     * before catalog-version-ttl-ms has passed.
+     */
+    public Mono<String> listETag(String pathAndQuery) {
+        CachedVersion cached = catalogVersion;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt < catalogVersionTtlNanos) {
+            return Mono.just(ProductETags.listTag(cached.value, 0, pathAndQuery));
+        }
+        long startGeneration = generation.get();
+        return productRepository.findCatalogVersion().map(version -> {
+            String value = ProductETags.versionTag(version);
+            if (generation.get() == startGeneration) {
+                catalogVersion = new CachedVersion(value, now);
+            }
+            return ProductETags.listTag(value, 0, pathAndQuery);
+        });
+    }
+
+    /**
+     * Queue the product for the S3 mirror and append it to the change log.
+     */
+    private Mono<Void> recordChange(Long id, ProductChange.Type type) {
+        ProductOutboxEvent event = type == ProductChange.Type.UPSERT
+                ? ProductOutboxEvent.upsert(id)
+                : ProductOutboxEvent.delete(id);
+        return productRepository.insertOutboxEvent(event)
+                .then(productRepository.insertChange(id, type, Product.timestamp()));
+    }
+
+    /**
+     * Run the write in a transaction, discarding the cached catalog version
+     * once it commits. Resubscribing runs the whole transaction again.
+     */
+    private <T> Mono<T> write(Mono<T> write) {
+        return transactionalOperator.transactional(write)
+                .doOnSuccess(result -> {
+                    generation.incrementAndGet();
+                    catalogVersion = null;
+                });
+    }
+
+    /**
+     * Retry a write transaction that lost an optimistic version check, a lock
+     * wait or a deadlock, up to max-attempts in total.
+     */
+    private <T> Mono<T> retryOnConflict(Mono<T> write) {
+        return write.retryWhen(Retry.max(maxWriteAttempts - 1)
+                .filter(error -> error instanceof ConcurrencyFailureException)
+                .doBeforeRetry(signal -> logger.debug("Write conflict on attempt {}, retrying: {}",
+                        signal.totalRetries() + 1, signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static <T> Mono<T> notFound(Long id) {
+        return Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + id));
+    }
+
+    /**
+     * Clamp a requested page size to [1, max-limit], using the default when
+     * the caller did not ask for one.
+     */
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultPageLimit;
+        }
+        return Math.max(1, Math.min(limit, maxPageLimit));
+    }
+
+    private static long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Check the columns the database would reject, so the client gets a 400
+     * naming the field rather than a driver error.
+     */
+    private static String validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "name is required";
+        }
+        if (product.getPrice() == null) {
+            return "price is required";
+        }
+        return null;
+    }
+
+    private static final class CachedVersion {
+
+        private final String value;
+        private final long loadedAt;
+
+        CachedVersion(String value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+
+/**
+ * JDBC batch inserts for bulk loads. Hibernate cannot batch inserts for
+ * entities with IDENTITY ids, so these go through a single prepared
+ * statement per table instead; with rewriteBatchedStatements=true MySQL
+ * Connector/J sends each batch as one multi-row INSERT.
+ */
+public interface ProductBatchRepository {
+
+    /**
+     * Insert the products in one JDBC batch and assign the generated ids
+     * back onto them.
+     */
+    void insertAll(List<Product> products);
+
+    void insertOutboxEvents(List<ProductOutboxEvent> events);
+
+    /**
+     * Add each delta to its product's stock in one JDBC batch, moving the
+     * version and updated_at of every product changed.
+     */
+    void applyStockDeltas(Map<Long, Long> deltas, LocalDateTime updatedAt);
+
+    /**
+     * Pass the id and version of every product, in id order, to the callback.
+     * Only the primary key index is read, over a forward-only cursor, so this
+     * is far cheaper than loading the rows. Runs on the current transaction's
+     * connection, so call it in a read-write transaction, or none, to read
+     * the writer rather than a replica.
+     */
+    void scanVersions(VersionCallback callback);
+
+    /**
+     * Products whose name, or with description set also whose description,
+     * contains the term, ranked as ProductSearchIndex ranks them. Returns up
+     * to limit (rank, id) cursors in rank order, then id, after the given
+     * cursor. With fullText set, candidates are first narrowed through the
+     * MySQL FULLTEXT index over the same columns. The term must already be
+     * trimmed and in lower case.
+     */
+    @Transactional(readOnly = true)
+    List<KeysetCursor> searchRanked(String term, boolean description, boolean fullText, KeysetCursor after,
+            int limit);
+
+    /**
+     * Run work that reads a large result set with server-side cursor fetching
+     * turned on for the current transaction's connection, so MySQL Connector/J
+     * reads rows in fetch-size chunks instead of buffering the whole result.
+     * The connection's settings are restored afterwards, leaving every other
+     * statement on client-side prepared statements. Must be called inside a
+     * transaction; other drivers run the work unchanged.
+     */
+    <T> T withCursorFetch(Supplier<T> work);
+
+    @FunctionalInterface
+    interface VersionCallback {
+        void accept(long id, long version);
+    }
+}
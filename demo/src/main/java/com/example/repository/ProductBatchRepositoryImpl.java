@@ -0,0 +1,192 @@
+package com.example.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.conf.PropertySet;
+import com.mysql.cj.conf.RuntimeProperty;
+import com.mysql.cj.jdbc.JdbcConnection;
+
+class ProductBatchRepositoryImpl implements ProductBatchRepository {
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, price, stock_quantity, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX_EVENT =
+            "INSERT INTO product_outbox (product_id, event_type, created_at, attempts, next_attempt_at) "
+            + "VALUES (?, ?, ?, 0, ?)";
+
+    private static final String ADJUST_STOCK =
+            "UPDATE products SET stock_quantity = COALESCE(stock_quantity, 0) + ?, version = version + 1, "
+            + "updated_at = ? WHERE id = ?";
+
+    private static final String SELECT_VERSIONS = "SELECT id, version FROM products ORDER BY id";
+
+    // The ranks of ProductSearchIndex: exact, prefix, word prefix, substring, description only
+    private static final String SEARCH_RANK =
+            "CASE WHEN LOWER(TRIM(name)) = ? THEN 4 WHEN LOWER(TRIM(name)) LIKE ? THEN 3 "
+            + "WHEN REGEXP_LIKE(LOWER(TRIM(name)), ?) THEN 2 WHEN LOWER(name) LIKE ? THEN 1 ELSE 0 END";
+
+    private static final int SCAN_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (Product product : products) {
+                    statement.setString(1, product.getName());
+                    statement.setString(2, product.getDescription());
+                    statement.setBigDecimal(3, product.getPrice());
+                    if (product.getStockQuantity() != null) {
+                        statement.setInt(4, product.getStockQuantity());
+                    } else {
+                        statement.setNull(4, Types.INTEGER);
+                    }
+                    statement.setTimestamp(5, Timestamp.valueOf(product.getCreatedAt()));
+                    statement.setTimestamp(6, Timestamp.valueOf(product.getUpdatedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Product product : products) {
+                        if (!keys.next()) {
+                            throw new DataRetrievalFailureException(
+                                    "Expected " + products.size() + " generated keys from batch insert");
+                        }
+                        product.setId(keys.getLong(1));
+                        product.setVersion(0L);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void insertOutboxEvents(List<ProductOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_EVENT, events, events.size(), (statement, event) -> {
+            statement.setLong(1, event.getProductId());
+            statement.setString(2, event.getEventType().name());
+            statement.setTimestamp(3, Timestamp.valueOf(event.getCreatedAt()));
+            statement.setTimestamp(4, Timestamp.valueOf(event.getNextAttemptAt()));
+        });
+    }
+
+    @Override
+    public void applyStockDeltas(Map<Long, Long> deltas, LocalDateTime updatedAt) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(ADJUST_STOCK, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getValue());
+            statement.setTimestamp(2, timestamp);
+            statement.setLong(3, entry.getKey());
+        });
+    }
+
+    @Override
+    public void scanVersions(VersionCallback callback) {
+        withCursorFetch(() -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_VERSIONS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(SCAN_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> callback.accept(resultSet.getLong(1), resultSet.getLong(2)));
+            return null;
+        });
+    }
+
+    @Override
+    public List<KeysetCursor> searchRanked(String term, boolean description, boolean fullText, KeysetCursor after,
+            int limit) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern = "%" + escaped + "%";
+        List<Object> arguments = new ArrayList<>(List.of(term, escaped + "%",
+                "[^\\p{L}\\p{Nd}]" + Pattern.quote(term), pattern));
+        StringBuilder sql = new StringBuilder("SELECT id, score FROM (SELECT id, ").append(SEARCH_RANK)
+                .append(" AS score FROM products WHERE ");
+        if (fullText) {
+            sql.append(description ? "MATCH(name, description)" : "MATCH(name)")
+                    .append(" AGAINST (? IN BOOLEAN MODE) AND ");
+            arguments.add('"' + term.replace('"', ' ').trim() + '"');
+        }
+        if (description) {
+            sql.append("(LOWER(name) LIKE ? OR LOWER(description) LIKE ?)");
+            arguments.add(pattern);
+            arguments.add(pattern);
+        } else {
+            sql.append("LOWER(name) LIKE ?");
+            arguments.add(pattern);
+        }
+        sql.append(") matches");
+        if (after != null) {
+            sql.append(" WHERE score < ? OR (score = ? AND id > ?)");
+            arguments.add(after.getKey());
+            arguments.add(after.getKey());
+            arguments.add(after.getId());
+        }
+        sql.append(" ORDER BY score DESC, id LIMIT ?");
+        arguments.add(limit);
+        return jdbcTemplate.query(sql.toString(),
+                (resultSet, row) -> new KeysetCursor(resultSet.getInt(2), resultSet.getLong(1)),
+                arguments.toArray());
+    }
+
+    @Override
+    public <T> T withCursorFetch(Supplier<T> work) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            if (!connection.isWrapperFor(JdbcConnection.class)) {
+                return work.get();
+            }
+            // Cursor fetching only applies to server-side prepared statements
+            PropertySet properties = connection.unwrap(JdbcConnection.class).getPropertySet();
+            RuntimeProperty<Boolean> cursorFetch = properties.getBooleanProperty(PropertyKey.useCursorFetch);
+            RuntimeProperty<Boolean> serverPrepare = properties.getBooleanProperty(PropertyKey.useServerPrepStmts);
+            boolean cursorFetchBefore = cursorFetch.getValue();
+            boolean serverPrepareBefore = serverPrepare.getValue();
+            cursorFetch.setValue(true);
+            serverPrepare.setValue(true);
+            try {
+                return work.get();
+            } finally {
+                cursorFetch.setValue(cursorFetchBefore);
+                serverPrepare.setValue(serverPrepareBefore);
+            }
+        });
+    }
+}
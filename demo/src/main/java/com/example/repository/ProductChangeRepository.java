@@ -0,0 +1,130 @@
+package com.example.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.model.ProductChange;
+import com.example.model.ProductDetail;
+
+/**
+ * The product_changes log behind ProductChangeLog. Reads join the current
+ * product row, so changes older than the in-memory window are returned with
+ * the product as it is now rather than as it was written.
+ */
+@Repository
+public class ProductChangeRepository {
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO product_changes (product_id, change_type, changed_at) VALUES (?, ?, ?)";
+
+    private static final String SELECT_CHANGES =
+            "SELECT c.seq, c.change_type, c.product_id, c.changed_at, p.name, p.description, p.price, "
+            + "p.stock_quantity, p.created_at, p.updated_at, p.version "
+            + "FROM product_changes c LEFT JOIN products p ON p.id = c.product_id AND c.change_type = 'UPSERT' "
+            + "WHERE c.seq > ? AND c.seq <= ? ORDER BY c.seq LIMIT ?";
+
+    private static final String SELECT_MAX_SEQ = "SELECT MAX(seq) FROM product_changes";
+
+    private static final String SELECT_MIN_SEQ = "SELECT MIN(seq) FROM product_changes";
+
+    private static final String SELECT_LAST_SEQ_BEFORE =
+            "SELECT MAX(seq) FROM product_changes WHERE changed_at < ?";
+
+    private static final String DELETE_THROUGH = "DELETE FROM product_changes WHERE seq > ? AND seq <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the changes in one JDBC batch and assign the generated
+     * sequence numbers back onto them.
+     */
+    public void insertAll(List<ProductChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CHANGE,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (ProductChange change : changes) {
+                    statement.setLong(1, change.getProductId());
+                    statement.setString(2, change.getType().name());
+                    statement.setTimestamp(3, Timestamp.valueOf(change.getChangedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (ProductChange change : changes) {
+                        if (!keys.next()) {
+                            throw new DataRetrievalFailureException(
+                                    "Expected " + changes.size() + " generated keys from batch insert");
+                        }
+                        change.setSeq(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Up to limit changes with since < seq <= upTo, in seq order.
+     */
+    public List<ProductChange> findAfter(long since, long upTo, int limit) {
+        return jdbcTemplate.query(SELECT_CHANGES, (rs, row) -> change(rs), since, upTo, limit);
+    }
+
+    public long findMaxSeq() {
+        Long seq = jdbcTemplate.queryForObject(SELECT_MAX_SEQ, Long.class);
+        return seq != null ? seq : 0;
+    }
+
+    /**
+     * The oldest retained seq, or null when the log is empty.
+     */
+    public Long findMinSeq() {
+        return jdbcTemplate.queryForObject(SELECT_MIN_SEQ, Long.class);
+    }
+
+    /**
+     * The newest seq changed before the given time, or null if there is none.
+     */
+    public Long findLastSeqBefore(LocalDateTime time) {
+        return jdbcTemplate.queryForObject(SELECT_LAST_SEQ_BEFORE, Long.class, Timestamp.valueOf(time));
+    }
+
+    public int deleteThrough(long after, long through) {
+        return jdbcTemplate.update(DELETE_THROUGH, after, through);
+    }
+
+    private static ProductChange change(ResultSet rs) throws SQLException {
+        ProductChange.Type type = ProductChange.Type.valueOf(rs.getString(2));
+        long productId = rs.getLong(3);
+        ProductDetail product = null;
+        if (rs.getString(5) != null) {
+            int stock = rs.getInt(8);
+            Integer stockQuantity = rs.wasNull() ? null : stock;
+            product = new ProductDetail(productId, rs.getString(5), rs.getString(6), rs.getBigDecimal(7),
+                    stockQuantity, dateTime(rs.getTimestamp(9)), dateTime(rs.getTimestamp(10)),
+                    rs.getLong(11));
+        }
+        return new ProductChange(rs.getLong(1), type, productId, rs.getTimestamp(4).toLocalDateTime(), product);
+    }
+
+    private static LocalDateTime dateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
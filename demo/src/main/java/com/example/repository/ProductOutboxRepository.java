@@ -0,0 +1,47 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.model.ProductOutboxEvent;
+
+@Repository
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    List<ProductOutboxEvent> findByNextAttemptAtLessThanEqualOrderByIdAsc(LocalDateTime now, Limit limit);
+
+    /**
+     * Push the events' next attempt out to the given time while their dispatch
+     * is in flight, so later polls skip them. If the application stops before
+     * the dispatch is acknowledged, they become due again once the lease ends.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProductOutboxEvent e set e.nextAttemptAt = :until where e.id in :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    /**
+     * Remove every event for the product up to and including maxId, i.e. all
+     * events that were coalesced into a single successful dispatch.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ProductOutboxEvent e where e.productId = :productId and e.id <= :maxId")
+    int deleteDispatched(@Param("productId") Long productId, @Param("maxId") Long maxId);
+
+    @Transactional
+    @Modifying
+    @Query("update ProductOutboxEvent e set e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :lastError where e.productId = :productId and e.id <= :maxId")
+    int markFailed(@Param("productId") Long productId, @Param("maxId") Long maxId,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+}
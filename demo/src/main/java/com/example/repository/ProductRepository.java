@@ -1,19 +1,93 @@
 package com.example.repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.example.model.CatalogVersion;
 import com.example.model.Product;
+import com.example.model.ProductStamp;
+import com.example.model.ProductSummary;
 
+import jakarta.persistence.QueryHint;
+
+/**
+ * Listing queries are keyset-paginated on id: callers pass the last id they
+ * have seen and a row limit, so a query never reads more than one page.
+ * They take the type to return: ProductSummary selects only the listed
+ * columns into DTOs, Product loads managed entities.
+ */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductBatchRepository {
+    
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit, Class<T> type);
     
-    List<Product> findByNameContainingIgnoreCase(String name);
+    <T> List<T> findByIdInOrderByIdAsc(Collection<Long> ids, Class<T> type);
+
+    /**
+     * Products priced within [min, max] in price order, then id, after the
+     * given (price, id) position; pass (min, Long.MIN_VALUE) for the first
+     * page. Reads idx_products_price, which InnoDB orders by (price, id).
+     */
+    @Query("select new com.example.model.ProductSummary(p.id, p.name, p.price, p.stockQuantity, p.updatedAt, "
+            + "p.version) from Product p where p.price between :min and :max "
+            + "and (p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId)) order by p.price, p.id")
+    List<ProductSummary> findPriceRangePage(BigDecimal min, BigDecimal max, BigDecimal afterPrice, long afterId,
+            Limit limit);
     
-    List<Product> findByPriceBetween(BigDecimal min, BigDecimal max);
+    long countByPriceBetween(BigDecimal min, BigDecimal max);
+
+    /**
+     * Add delta to a product's stock in one conditional UPDATE, unless that
+     * would take it below zero. The row lock is held only for this statement
+     * and the rest of the caller's transaction, with no read-modify-write.
+     *
+     * @return 1 if the stock was adjusted, 0 if the product does not exist or
+     *         has too little stock
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.stockQuantity = coalesce(p.stockQuantity, 0) + :delta, "
+            + "p.version = p.version + 1, p.updatedAt = :updatedAt "
+            + "where p.id = :id and coalesce(p.stockQuantity, 0) + :delta >= 0")
+    int adjustStock(Long id, int delta, LocalDateTime updatedAt);
+
+    /**
+     * The updated_at and stock of one product, without loading the entity.
+     */
+    Optional<ProductStamp> findStampById(Long id);
+
+    /**
+     * Row count and latest updated_at, both answered from the updated_at index.
+     */
+    @Query("select new com.example.model.CatalogVersion(count(p), max(p.updatedAt)) from Product p")
+    CatalogVersion findCatalogVersion();
+
+    <T> List<T> findByIdGreaterThanAndStockQuantityGreaterThanOrderByIdAsc(Long after, Integer quantity, Limit limit,
+            Class<T> type);
     
-    List<Product> findByStockQuantityGreaterThan(Integer quantity);
+    /**
+     * Stream every product in id order over a forward-only cursor. Consumed
+     * inside ProductBatchRepository.withCursorFetch, MySQL Connector/J reads
+     * rows from a server-side cursor in fetch-size chunks instead of buffering
+     * the whole result set; the caller must consume the stream inside a
+     * transaction and close it.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllOrderById();
 }
@@ -0,0 +1,57 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Per-node, per-product sequence number of the last stock journal record
+ * applied to the products table. Written in the same transaction as the
+ * stock change, so after a crash the journal can be replayed from exactly
+ * where the database left off.
+ */
+@Repository
+public class StockCheckpointRepository {
+
+    private static final String SELECT_CHECKPOINTS =
+            "SELECT product_id, last_seq FROM stock_journal_checkpoint WHERE node_id = ?";
+
+    private static final String UPSERT_CHECKPOINT =
+            "INSERT INTO stock_journal_checkpoint (node_id, product_id, last_seq) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE last_seq = GREATEST(last_seq, VALUES(last_seq))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<Long, Long> findByNode(String nodeId) {
+        Map<Long, Long> checkpoints = new HashMap<>();
+        jdbcTemplate.query(SELECT_CHECKPOINTS,
+                rs -> {
+                    checkpoints.put(rs.getLong(1), rs.getLong(2));
+                },
+                nodeId);
+        return checkpoints;
+    }
+
+    /**
+     * Raise the checkpoints of the given products, in one JDBC batch.
+     */
+    public void saveAll(String nodeId, Map<Long, Long> lastSeqByProduct) {
+        if (lastSeqByProduct.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(lastSeqByProduct.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_CHECKPOINT, entries, entries.size(), (statement, entry) -> {
+            statement.setString(1, nodeId);
+            statement.setLong(2, entry.getKey());
+            statement.setLong(3, entry.getValue());
+        });
+    }
+}
@@ -0,0 +1,491 @@
+package com.example.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import com.example.model.Product;
+
+/**
+ * Read-only, memory-mapped view of a whole-catalog snapshot file, and the
+ * Writer that produces one.
+ *
+ * <p>The file is columnar: a header, one block per column with the values of
+ * every row in id order, and a footer indexing the blocks.
+ * <pre>
+ *   "PCAT" | format version (int)
+ *   id (long[n]) | version (long[n]) | price in cents (long[n]) | stock (int[n])
+ *   created_at, updated_at (epoch micros, long[n])
+ *   name, description (int[n+1] offsets | null bitmap | UTF-8 bytes)
+ *   footer: rows (int) | taken at (epoch millis) | columns (int) | offset, length (long, long) per column
+ *           | CRC32C of everything before the footer (long)
+ *   footer length (int) | "PCAT"
+ * </pre>
+ * Fixed-width columns are read in place, so looking at a row's id and version
+ * touches only those two pages and never decodes its strings. A file is
+ * limited to 2 GB, the size of a single mapping.
+ */
+public final class CatalogSnapshot implements AutoCloseable {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50434154; // "PCAT"
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 8;
+    private static final int COLUMNS = 8;
+    private static final int ID = 0;
+    private static final int VERSION = 1;
+    private static final int PRICE = 2;
+    private static final int STOCK = 3;
+    private static final int CREATED_AT = 4;
+    private static final int UPDATED_AT = 5;
+    private static final int NAME = 6;
+    private static final int DESCRIPTION = 7;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final long takenAt;
+    private final int[] offsets = new int[COLUMNS];
+
+    private CatalogSnapshot(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog snapshot format " + buffer.getInt(4));
+        }
+        int footerLength = buffer.getInt(size - TRAILER_BYTES);
+        int footer = size - TRAILER_BYTES - footerLength;
+        if (footerLength < 16 || footer < HEADER_BYTES) {
+            throw new IOException("Corrupt catalog snapshot footer");
+        }
+        this.rows = buffer.getInt(footer);
+        this.takenAt = buffer.getLong(footer + 4);
+        if (buffer.getInt(footer + 12) != COLUMNS || footerLength != 16 + COLUMNS * 16 + 8) {
+            throw new IOException("Unexpected catalog snapshot columns");
+        }
+        for (int column = 0; column < COLUMNS; column++) {
+            long offset = buffer.getLong(footer + 16 + column * 16);
+            long length = buffer.getLong(footer + 24 + column * 16);
+            if (offset < HEADER_BYTES || offset + length > footer) {
+                throw new IOException("Catalog snapshot column " + column + " out of bounds");
+            }
+            offsets[column] = (int) offset;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, footer));
+        if (crc.getValue() != buffer.getLong(footer + 16 + COLUMNS * 16)) {
+            throw new IOException("Catalog snapshot checksum mismatch");
+        }
+    }
+
+    /**
+     * Map and verify the snapshot file. The mapping stays valid after
+     * close() until the instance is garbage collected.
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot too large to map: " + size + " bytes");
+            }
+            return new CatalogSnapshot(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * When the rows were read from the database, in epoch milliseconds.
+     */
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public long id(int row) {
+        return buffer.getLong(offsets[ID] + row * 8);
+    }
+
+    public long version(int row) {
+        return buffer.getLong(offsets[VERSION] + row * 8);
+    }
+
+    /**
+     * Row holding the given id, or -1. Rows are in id order.
+     */
+    public int indexOf(long id) {
+        int low = 0;
+        int high = rows - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = id(middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode a row into a new, detached Product.
+     */
+    public Product product(int row) {
+        Product product = new Product();
+        product.setId(id(row));
+        product.setVersion(version(row));
+        product.setPrice(BigDecimal.valueOf(buffer.getLong(offsets[PRICE] + row * 8), 2));
+        int stock = buffer.getInt(offsets[STOCK] + row * 4);
+        product.setStockQuantity(stock == NULL_INT ? null : stock);
+        product.setCreatedAt(dateTime(buffer.getLong(offsets[CREATED_AT] + row * 8)));
+        product.setUpdatedAt(dateTime(buffer.getLong(offsets[UPDATED_AT] + row * 8)));
+        product.setName(string(offsets[NAME], row));
+        product.setDescription(string(offsets[DESCRIPTION], row));
+        return product;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String string(int column, int row) {
+        int bitmap = column + (rows + 1) * 4;
+        if ((buffer.get(bitmap + (row >>> 3)) & (1 << (row & 7))) != 0) {
+            return null;
+        }
+        int bytes = bitmap + (rows + 7) / 8;
+        int start = buffer.getInt(column + row * 4);
+        int end = buffer.getInt(column + (row + 1) * 4);
+        byte[] utf8 = new byte[end - start];
+        buffer.get(bytes + start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        if (micros == NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL_LONG;
+        }
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), dateTime);
+    }
+
+    /**
+     * Streams products, which must be added in ascending id order, into one
+     * temporary file per column and concatenates those into a snapshot file,
+     * so memory use does not grow with the catalog. Prices are stored in
+     * cents, matching the column's scale of 2. Closing the writer deletes the
+     * temporary files.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final long takenAt;
+        private final List<ColumnFile> files = new ArrayList<>();
+        private final ColumnFile ids;
+        private final ColumnFile versions;
+        private final ColumnFile prices;
+        private final ColumnFile stocks;
+        private final ColumnFile createdAts;
+        private final ColumnFile updatedAts;
+        private final StringColumn names;
+        private final StringColumn descriptions;
+        private long lastId = Long.MIN_VALUE;
+        private int rows;
+
+        /**
+         * @param directory where the column files are kept until close()
+         */
+        public Writer(long takenAt, Path directory) throws IOException {
+            this.takenAt = takenAt;
+            try {
+                ids = column(directory);
+                versions = column(directory);
+                prices = column(directory);
+                stocks = column(directory);
+                createdAts = column(directory);
+                updatedAts = column(directory);
+                names = new StringColumn(directory);
+                descriptions = new StringColumn(directory);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @throws UncheckedIOException if a column file cannot be written
+         */
+        public void add(Product product) {
+            long id = product.getId();
+            if (id <= lastId) {
+                throw new IllegalArgumentException("Products must be added in ascending id order: " + id);
+            }
+            lastId = id;
+            try {
+                ids.putLong(id);
+                versions.putLong(product.getVersion() != null ? product.getVersion() : 0L);
+                prices.putLong(product.getPrice().setScale(2).unscaledValue().longValueExact());
+                stocks.putInt(product.getStockQuantity() != null ? product.getStockQuantity() : NULL_INT);
+                createdAts.putLong(micros(product.getCreatedAt()));
+                updatedAts.putLong(micros(product.getUpdatedAt()));
+                names.add(product.getName());
+                descriptions.add(product.getDescription());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        public int size() {
+            return rows;
+        }
+
+        /**
+         * Write the snapshot to the given file, replacing it. Called once,
+         * after the last product has been added.
+         */
+        public void writeTo(Path file) throws IOException {
+            names.finish();
+            descriptions.finish();
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                CRC32C crc = new CRC32C();
+                ByteBuffer copy = ByteBuffer.allocate(ColumnFile.BUFFER_BYTES);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                long position = write(out, header, crc);
+                ByteBuffer footer = ByteBuffer.allocate(16 + COLUMNS * 16 + 8)
+                        .putInt(rows).putLong(takenAt).putInt(COLUMNS);
+                ColumnFile[] fixed = {ids, versions, prices, stocks, createdAts, updatedAts};
+                for (ColumnFile column : fixed) {
+                    footer.putLong(position).putLong(column.size());
+                    position += column.copyTo(out, crc, copy);
+                }
+                for (StringColumn column : new StringColumn[] {names, descriptions}) {
+                    long start = position;
+                    position += column.offsets.copyTo(out, crc, copy);
+                    position += column.nulls.copyTo(out, crc, copy);
+                    position += column.bytes.copyTo(out, crc, copy);
+                    footer.putLong(start).putLong(position - start);
+                }
+                if (position + footer.capacity() + TRAILER_BYTES > Integer.MAX_VALUE) {
+                    throw new IOException("Catalog snapshot exceeds 2 GB");
+                }
+                footer.putLong(crc.getValue()).flip();
+                write(out, footer, null);
+                write(out, ByteBuffer.allocate(TRAILER_BYTES).putInt(footer.capacity()).putInt(MAGIC).flip(), null);
+                out.force(true);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (ColumnFile column : files) {
+                try {
+                    column.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private ColumnFile column(Path directory) throws IOException {
+            ColumnFile column = new ColumnFile(directory);
+            files.add(column);
+            return column;
+        }
+
+        private static long write(FileChannel out, ByteBuffer buffer, CRC32C crc) throws IOException {
+            if (crc != null) {
+                crc.update(buffer.duplicate());
+            }
+            long written = 0;
+            while (buffer.hasRemaining()) {
+                written += out.write(buffer);
+            }
+            return written;
+        }
+
+        private final class StringColumn {
+            private final ColumnFile offsets;
+            private final ColumnFile nulls;
+            private final ColumnFile bytes;
+            // Null bits of the rows since the last whole byte of the bitmap
+            private int nullBits;
+
+            private StringColumn(Path directory) throws IOException {
+                offsets = column(directory);
+                nulls = column(directory);
+                bytes = column(directory);
+                offsets.putInt(0);
+            }
+
+            private void add(String value) throws IOException {
+                if (value == null) {
+                    nullBits |= 1 << (rows & 7);
+                } else {
+                    bytes.put(value.getBytes(StandardCharsets.UTF_8));
+                }
+                if (bytes.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Catalog snapshot exceeds 2 GB");
+                }
+                offsets.putInt((int) bytes.size());
+                if ((rows & 7) == 7) {
+                    nulls.put((byte) nullBits);
+                    nullBits = 0;
+                }
+            }
+
+            private void finish() throws IOException {
+                if ((rows & 7) != 0) {
+                    nulls.put((byte) nullBits);
+                    nullBits = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * One column, written big-endian through a small buffer to a temporary
+     * file that is deleted when closed.
+     */
+    private static final class ColumnFile implements Closeable {
+
+        private static final int BUFFER_BYTES = 64 * 1024;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private long size;
+
+        ColumnFile(Path directory) throws IOException {
+            Path file = Files.createTempFile(directory, ".column-", ".tmp");
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) {
+                drain();
+            }
+            buffer.putLong(value);
+            size += 8;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            buffer.putInt(value);
+            size += 4;
+        }
+
+        void put(byte value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put(value);
+            size++;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+            size += bytes.length;
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * Append the column to out through the given buffer, adding its
+         * bytes to crc, and return how many were written.
+         */
+        long copyTo(FileChannel out, CRC32C crc, ByteBuffer copy) throws IOException {
+            drain();
+            long position = 0;
+            while (position < size) {
+                copy.clear();
+                int read = channel.read(copy, position);
+                if (read < 0) {
+                    throw new IOException("Catalog snapshot column file truncated");
+                }
+                position += read;
+                copy.flip();
+                crc.update(copy.duplicate());
+                while (copy.hasRemaining()) {
+                    out.write(copy);
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Publishes the whole catalog to S3 as a single CatalogSnapshot file and
+ * hands the latest one to ProductIndexManager at startup.
+ *
+ * <p>Snapshots are written under snapshots/catalog/{taken at}.pcat. The
+ * snapshots/catalog/latest object names the current snapshot and the one
+ * before it; older ones are deleted as new ones are published, so an
+ * instance still downloading the previous snapshot is not cut off. A local
+ * copy of the latest snapshot is kept in local-dir and reused when S3 still
+ * points at it or cannot be reached.
+ */
+@Service
+public class CatalogSnapshotService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    static final String KEY_PREFIX = "snapshots/catalog/";
+    static final String LATEST_KEY = KEY_PREFIX + "latest";
+    private static final String SUFFIX = ".pcat";
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final S3Service s3Service;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean publish;
+    private final Path localDir;
+    // Publishing reads the whole catalog, so it runs off the shared scheduler threads
+    private final ThreadPoolTaskExecutor publishExecutor;
+
+    public CatalogSnapshotService(ProductRepository productRepository, EntityManager entityManager,
+            S3Service s3Service, PlatformTransactionManager transactionManager,
+            @Value("${product.snapshot.enabled:true}") boolean enabled,
+            @Value("${product.snapshot.publish:false}") boolean publish,
+            @Value("${product.snapshot.local-dir:${java.io.tmpdir}/product-snapshot}") String localDir,
+            @Value("${product.index.load-timeout-seconds:600}") int timeoutSeconds) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.s3Service = s3Service;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(timeoutSeconds);
+        this.enabled = enabled;
+        this.publish = publish;
+        this.localDir = Paths.get(localDir);
+        if (enabled && publish) {
+            publishExecutor = new ThreadPoolTaskExecutor();
+            publishExecutor.setCorePoolSize(1);
+            publishExecutor.setMaxPoolSize(1);
+            publishExecutor.setQueueCapacity(0);
+            publishExecutor.setThreadNamePrefix("catalog-snapshot-");
+            publishExecutor.initialize();
+        } else {
+            publishExecutor = null;
+        }
+        logger.info("CatalogSnapshotService {} (publishing {}) with local copies in {}",
+                enabled ? "enabled" : "disabled", enabled && publish ? "on" : "off", localDir);
+    }
+
+    /**
+     * Start a publish on the snapshot thread, unless the previous one is
+     * still running.
+     */
+    @Scheduled(fixedDelayString = "${product.snapshot.interval-ms:900000}",
+            initialDelayString = "${product.snapshot.initial-delay-ms:60000}")
+    public void schedulePublish() {
+        if (publishExecutor == null) {
+            return;
+        }
+        try {
+            publishExecutor.execute(this::publish);
+        } catch (TaskRejectedException e) {
+            logger.warn("Skipping catalog snapshot: the previous one is still being published");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (publishExecutor != null) {
+            publishExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Read the catalog in id order, write it to a snapshot file and publish
+     * it as the latest snapshot.
+     */
+    public void publish() {
+        if (!enabled || !publish) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long takenAt = System.currentTimeMillis();
+            String key = KEY_PREFIX + takenAt + SUFFIX;
+            Files.createDirectories(localDir);
+            Path file = localDir.resolve(fileName(key));
+            int rows;
+            try (CatalogSnapshot.Writer writer = new CatalogSnapshot.Writer(takenAt, localDir)) {
+                transactionTemplate.executeWithoutResult(status -> productRepository.withCursorFetch(() -> {
+                    try (Stream<Product> products = productRepository.streamAllOrderById()) {
+                        Iterator<Product> iterator = products.iterator();
+                        while (iterator.hasNext()) {
+                            Product product = iterator.next();
+                            writer.add(product);
+                            entityManager.detach(product);
+                        }
+                    }
+                    return null;
+                }));
+                rows = writer.size();
+                Path temporary = Files.createTempFile(localDir, ".snapshot-", ".tmp");
+                try {
+                    writer.writeTo(temporary);
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+            s3Service.putFile(key, file, "application/octet-stream");
+
+            String[] previous = readLatest();
+            s3Service.putText(LATEST_KEY, previous != null ? key + "\n" + previous[0] : key);
+            if (previous != null && previous.length > 1 && !previous[1].equals(key)) {
+                s3Service.deleteObject(previous[1]);
+            }
+            pruneLocalCopies(file);
+            logger.info("Published catalog snapshot {} with {} products ({} bytes) in {} ms",
+                    key, rows, Files.size(file), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to publish catalog snapshot", e);
+        }
+    }
+
+    /**
+     * Open the latest snapshot, downloading it unless the local copy is
+     * current, or fall back to the newest local copy when S3 cannot be read.
+     * Returns null when snapshots are disabled or none can be opened. The
+     * caller closes the snapshot.
+     */
+    public CatalogSnapshot openLatest() {
+        if (!enabled) {
+            return null;
+        }
+        Path file = null;
+        try {
+            String[] latest = readLatest();
+            if (latest != null) {
+                file = localDir.resolve(fileName(latest[0]));
+                if (!Files.exists(file)) {
+                    download(latest[0], file);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not fetch the latest catalog snapshot from S3; trying a local copy: {}",
+                    e.getMessage());
+            file = null;
+        }
+        if (file == null) {
+            file = newestLocalCopy();
+        }
+        if (file == null) {
+            logger.info("No catalog snapshot available");
+            return null;
+        }
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+            pruneLocalCopies(file);
+            return snapshot;
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable catalog snapshot {}: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Replaced by the next download
+            }
+            return null;
+        }
+    }
+
+    private void download(String key, Path file) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(localDir);
+        Path temporary = localDir.resolve("." + fileName(key) + ".download");
+        Files.deleteIfExists(temporary);
+        try {
+            s3Service.downloadFile(key, temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        logger.info("Downloaded catalog snapshot {} ({} bytes) in {} ms",
+                key, Files.size(file), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Current key first, then the previous one if any
+    private String[] readLatest() {
+        String latest = s3Service.getText(LATEST_KEY);
+        if (latest == null || latest.isBlank()) {
+            return null;
+        }
+        return latest.strip().split("\n");
+    }
+
+    private Path newestLocalCopy() {
+        Path newest = null;
+        for (Path file : localCopies()) {
+            if (newest == null || file.getFileName().toString().compareTo(newest.getFileName().toString()) > 0) {
+                newest = file;
+            }
+        }
+        return newest;
+    }
+
+    private void pruneLocalCopies(Path keep) {
+        for (Path file : localCopies()) {
+            if (!file.equals(keep)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.debug("Could not delete old catalog snapshot {}", file, e);
+                }
+            }
+        }
+    }
+
+    private List<Path> localCopies() {
+        if (!Files.isDirectory(localDir)) {
+            return List.of();
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(localDir, "*" + SUFFIX)) {
+            List<Path> copies = new ArrayList<>();
+            files.forEach(copies::add);
+            return copies;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Keys end in a 13-digit epoch millisecond count, so file names sort by age
+    private static String fileName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
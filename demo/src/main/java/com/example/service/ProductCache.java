@@ -0,0 +1,125 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process read-through cache for products keyed by id.
+ * Entries are evicted by size and by time since write, and are refreshed
+ * by ProductService writes once the surrounding transaction commits.
+ */
+@Component
+public class ProductCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCache.class);
+
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(
+            @Value("${product.cache.maximum-size:10000}") long maximumSize,
+            @Value("${product.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        logger.info("ProductCache initialized with maximum size {} and TTL {}s", maximumSize, ttlSeconds);
+    }
+
+    /**
+     * Return the cached product or load it with the given loader. Concurrent
+     * callers for the same id share a single load; a null result is not cached.
+     */
+    public Product get(Long id, Function<Long, Product> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Return the cached products for the given ids, loading all missing ones
+     * with a single call to the bulk loader. Ids the loader does not return
+     * are absent from the result.
+     */
+    public Map<Long, Product> getAll(Collection<Long> ids,
+            Function<Set<? extends Long>, Map<Long, Product>> bulkLoader) {
+        return cache.getAll(ids, bulkLoader);
+    }
+
+    public Product getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Store the product once the current transaction commits, or immediately
+     * when no transaction is active.
+     */
+    public void put(Product product) {
+        afterCommit(() -> cache.put(product.getId(), product));
+    }
+
+    /**
+     * Drop the product now and again after commit, so that a load racing
+     * with the transaction cannot leave the old row behind.
+     */
+    public void evict(Long id) {
+        cache.invalidate(id);
+        afterCommit(() -> cache.invalidate(id));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Cache<Long, Product> getNativeCache() {
+        return cache;
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "products");
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
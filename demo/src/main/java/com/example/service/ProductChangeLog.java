@@ -0,0 +1,596 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.exception.ChangesExpiredException;
+import com.example.model.Product;
+import com.example.model.ProductChange;
+import com.example.model.ProductChanges;
+import com.example.model.ProductDetail;
+import com.example.repository.ProductChangeRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Sequenced feed of committed product changes for downstream consumers.
+ *
+ * <p>Every ProductChangedEvent is written to product_changes just before its
+ * transaction commits, which assigns its seq. Once committed it is appended
+ * to an in-memory ring of the last ring-size changes. Reads after a seq
+ * inside the ring are served from memory. Older reads go to the table,
+ * which keeps retention-hours of changes.
+ *
+ * <p>Transactions commit in a different order than they draw seqs, so
+ * changes are only handed out up to the watermark: the highest seq below
+ * which no transaction is still open. A consumer that has read up to a seq
+ * therefore never misses a lower one that commits later. The watermark only
+ * knows about this instance's transactions, so consumers must follow the
+ * instance that writes products.
+ *
+ * <p>Consumers either long-poll (poll) or hold a Server-Sent Events stream
+ * (subscribe). Both are woken when the watermark moves. Streams are sent
+ * from their own pool of stream-threads, so slow clients cannot hold up
+ * the application's other async work; a stream that cannot be queued on it
+ * is closed, and the client resumes from Last-Event-ID.
+ */
+@Service
+public class ProductChangeLog implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeLog.class);
+
+    private static final int PRUNE_CHUNK = 10_000;
+
+    private final ProductChangeRepository changeRepository;
+    private final Executor executor;
+    private final ThreadPoolTaskExecutor streamExecutor;
+    private final long streamTimeoutMs;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+    private final int retentionHours;
+
+    // Guarded by this. The ring holds every committed change with floor < seq <= watermark, in seq order.
+    private final ProductChange[] ring;
+    private int head;
+    private int size;
+    private long floor;
+    private long watermark;
+    private long lastAllocated;
+    private long prunedThrough;
+    private boolean initialized;
+    // Open transactions, keyed by the highest seq known to be below all of theirs
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+    // Committed above the watermark, waiting for an older transaction to finish
+    private final TreeMap<Long, ProductChange> held = new TreeMap<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder memoryReads = new LongAdder();
+    private final LongAdder databaseReads = new LongAdder();
+
+    public ProductChangeLog(ProductChangeRepository changeRepository,
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${product.changes.ring-size:10000}") int ringSize,
+            @Value("${product.changes.default-limit:100}") int defaultLimit,
+            @Value("${product.changes.max-limit:1000}") int maxLimit,
+            @Value("${product.changes.default-timeout-ms:30000}") long defaultTimeoutMs,
+            @Value("${product.changes.max-timeout-ms:120000}") long maxTimeoutMs,
+            @Value("${product.changes.retention-hours:168}") int retentionHours,
+            @Value("${product.changes.stream-timeout-ms:3600000}") long streamTimeoutMs,
+            @Value("${product.changes.stream-threads:8}") int streamThreads,
+            @Value("${product.changes.stream-queue-capacity:1000}") int streamQueueCapacity) {
+        this.changeRepository = changeRepository;
+        this.executor = executor;
+        this.streamExecutor = new ThreadPoolTaskExecutor();
+        this.streamExecutor.setCorePoolSize(Math.max(1, streamThreads));
+        this.streamExecutor.setMaxPoolSize(Math.max(1, streamThreads));
+        this.streamExecutor.setQueueCapacity(streamQueueCapacity);
+        this.streamExecutor.setThreadNamePrefix("product-changes-");
+        this.streamExecutor.initialize();
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.ring = new ProductChange[Math.max(1, ringSize)];
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        this.retentionHours = retentionHours;
+        logger.info("ProductChangeLog initialized with {} changes in memory and {} hours in the database, "
+                + "streaming on {} threads", ring.length, retentionHours, Math.max(1, streamThreads));
+    }
+
+    /**
+     * Record the change in the current transaction, or on its own when there
+     * is none. Runs synchronously, unlike the after-commit listeners, so the
+     * row is part of the transaction.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductChange change = new ProductChange(null,
+                event.getType() == ProductChangedEvent.Type.DELETED
+                        ? ProductChange.Type.DELETE : ProductChange.Type.UPSERT,
+                event.getProductId(), Product.timestamp(), null);
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+            if (batch == null) {
+                batch = new Batch();
+                TransactionSynchronizationManager.bindResource(this, batch);
+                TransactionSynchronizationManager.registerSynchronization(batch);
+            }
+            batch.add(change, event.getProduct());
+        } else {
+            Batch batch = new Batch();
+            batch.add(change, event.getProduct());
+            batch.beforeCommit(false);
+            batch.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    /**
+     * Up to limit changes after since, from memory when they are still in
+     * the ring and from the database otherwise.
+     *
+     * @throws ChangesExpiredException if changes after since have been pruned
+     */
+    public ProductChanges read(long since, Integer limit) {
+        int count = resolveLimit(limit);
+        long upTo;
+        synchronized (this) {
+            initialize();
+            checkRetained(since);
+            if (since >= watermark) {
+                return ProductChanges.empty(since);
+            }
+            upTo = watermark;
+            if (since >= floor) {
+                memoryReads.increment();
+                List<ProductChange> changes = new ArrayList<>(Math.min(count, size));
+                for (int i = firstAfter(since); i < size && changes.size() < count; i++) {
+                    changes.add(ring[(head + i) % ring.length]);
+                }
+                return batch(changes, upTo);
+            }
+        }
+        databaseReads.increment();
+        return batch(changeRepository.findAfter(since, upTo, count), upTo);
+    }
+
+    /**
+     * Changes after since, or after the current position when since is null.
+     * When there are none yet the result is held open until one commits or
+     * timeoutMs passes, and then completes with an empty batch.
+     */
+    public DeferredResult<ProductChanges> poll(Long since, Integer limit, Long timeoutMs) {
+        long timeout = timeoutMs != null ? Math.max(0, Math.min(timeoutMs, maxTimeoutMs)) : defaultTimeoutMs;
+        long position = since != null ? since : position();
+        ProductChanges changes = read(position, limit);
+        DeferredResult<ProductChanges> result = new DeferredResult<>(timeout);
+        if (!changes.getChanges().isEmpty() || changes.isHasMore() || timeout == 0) {
+            result.setResult(changes);
+            return result;
+        }
+        Waiter waiter = new Waiter(changes.getNext(), limit, result);
+        result.onTimeout(() -> result.setResult(ProductChanges.empty(waiter.since)));
+        result.onCompletion(() -> removeWaiter(waiter));
+        boolean ready;
+        synchronized (this) {
+            ready = watermark > waiter.since;
+            if (!ready) {
+                waiters.add(waiter);
+            }
+        }
+        if (ready) {
+            executor.execute(waiter::complete);
+        }
+        return result;
+    }
+
+    /**
+     * Stream changes after since, or after the current position when since
+     * is null, as Server-Sent Events with the seq as event id, so a
+     * reconnecting EventSource resumes from Last-Event-ID. The stream ends
+     * after stream-timeout-ms.
+     */
+    public SseEmitter subscribe(Long since) {
+        long position = since != null ? since : position();
+        synchronized (this) {
+            initialize();
+            checkRetained(position);
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, position);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscriber.close(null));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscriber.signal();
+        return emitter;
+    }
+
+    /**
+     * The seq of the latest change handed out to consumers.
+     */
+    public synchronized long position() {
+        initialize();
+        return watermark;
+    }
+
+    /**
+     * Keep idle streams from being closed by proxies and notice clients
+     * that have gone away.
+     */
+    @Scheduled(fixedDelayString = "${product.changes.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscriber.close(null);
+            }
+        }
+    }
+
+    /**
+     * Delete changes older than retention-hours, in chunks. Consumers
+     * asking for pruned changes are answered with 410 Gone.
+     */
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval-ms:3600000}",
+            initialDelayString = "${product.changes.prune-initial-delay-ms:300000}")
+    public void prune() {
+        try {
+            Long through = changeRepository.findLastSeqBefore(Product.timestamp().minusHours(retentionHours));
+            Long oldest = changeRepository.findMinSeq();
+            if (through == null || oldest == null) {
+                return;
+            }
+            synchronized (this) {
+                initialize();
+                through = Math.min(through, watermark);
+                prunedThrough = Math.max(prunedThrough, through);
+            }
+            int deleted = 0;
+            for (long after = oldest - 1; after < through; after += PRUNE_CHUNK) {
+                deleted += changeRepository.deleteThrough(after, Math.min(after + PRUNE_CHUNK, through));
+            }
+            logger.info("Pruned {} product changes up to seq {}", deleted, through);
+        } catch (RuntimeException e) {
+            logger.warn("Could not prune product changes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the stream pool. Open streams are closed with their requests.
+     */
+    @Override
+    public void destroy() {
+        streamExecutor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.changes.position", this, log -> log.stat("position"))
+                .description("Seq of the latest change handed out to consumers")
+                .register(registry);
+        Gauge.builder("product.changes.buffered", this, log -> log.stat("buffered"))
+                .description("Changes held in memory")
+                .register(registry);
+        Gauge.builder("product.changes.consumers", this, log -> log.stat("waiters"))
+                .description("Open change feed requests")
+                .tag("kind", "poll")
+                .register(registry);
+        Gauge.builder("product.changes.consumers", subscribers, Set::size)
+                .description("Open change feed requests")
+                .tag("kind", "stream")
+                .register(registry);
+        FunctionCounter.builder("product.changes.reads", memoryReads, LongAdder::sum)
+                .description("Change feed reads by where they were served from")
+                .tag("source", "memory")
+                .register(registry);
+        FunctionCounter.builder("product.changes.reads", databaseReads, LongAdder::sum)
+                .description("Change feed reads by where they were served from")
+                .tag("source", "database")
+                .register(registry);
+    }
+
+    private synchronized double stat(String name) {
+        return switch (name) {
+            case "position" -> watermark;
+            case "buffered" -> size;
+            case "waiters" -> waiters.size();
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    // Called with the lock held
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        long latest = changeRepository.findMaxSeq();
+        Long oldest = changeRepository.findMinSeq();
+        watermark = latest;
+        floor = latest;
+        lastAllocated = latest;
+        prunedThrough = oldest != null ? oldest - 1 : latest;
+        initialized = true;
+        logger.info("Product change log starting at seq {}", latest);
+    }
+
+    private void checkRetained(long since) {
+        if (since < prunedThrough) {
+            throw new ChangesExpiredException("Changes after seq " + since + " are no longer retained; "
+                    + "reload the catalog and follow changes from seq " + watermark);
+        }
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+        return limit;
+    }
+
+    private static ProductChanges batch(List<ProductChange> changes, long upTo) {
+        // Without changes, everything up to upTo was rolled back
+        long next = changes.isEmpty() ? upTo : changes.get(changes.size() - 1).getSeq();
+        return new ProductChanges(changes, next, next < upTo);
+    }
+
+    // Ring position of the first change after since; called with the lock held
+    private int firstAfter(long since) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ring[(head + middle) % ring.length].getSeq() <= since) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private synchronized long reserve() {
+        initialize();
+        // Seqs drawn from now on are above every seq seen so far
+        inFlight.merge(lastAllocated, 1, Integer::sum);
+        return lastAllocated;
+    }
+
+    private synchronized long allocated(long reservation, long first, long last) {
+        leave(reservation);
+        inFlight.merge(first - 1, 1, Integer::sum);
+        lastAllocated = Math.max(lastAllocated, last);
+        return first - 1;
+    }
+
+    private synchronized void complete(long bound, List<ProductChange> committed) {
+        leave(bound);
+        for (ProductChange change : committed) {
+            held.put(change.getSeq(), change);
+        }
+        advance();
+    }
+
+    private synchronized void abandon(long reservation) {
+        leave(reservation);
+        advance();
+    }
+
+    // Called with the lock held
+    private void leave(long bound) {
+        inFlight.computeIfPresent(bound, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // Called with the lock held
+    private void advance() {
+        long next = inFlight.isEmpty() ? lastAllocated : Math.min(lastAllocated, inFlight.firstKey());
+        if (next <= watermark) {
+            return;
+        }
+        watermark = next;
+        Iterator<ProductChange> released = held.headMap(watermark, true).values().iterator();
+        while (released.hasNext()) {
+            append(released.next());
+            released.remove();
+        }
+        for (Iterator<Waiter> iterator = waiters.iterator(); iterator.hasNext();) {
+            Waiter waiter = iterator.next();
+            if (waiter.since < watermark) {
+                iterator.remove();
+                executor.execute(waiter::complete);
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    // Called with the lock held
+    private void append(ProductChange change) {
+        if (size == ring.length) {
+            floor = ring[head].getSeq();
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+        ring[(head + size) % ring.length] = change;
+        size++;
+    }
+
+    private synchronized void removeWaiter(Waiter waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * The changes of one transaction, written to the log just before it
+     * commits so their seqs are drawn as late as possible.
+     */
+    private final class Batch implements TransactionSynchronization {
+
+        private final List<ProductChange> changes = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>();
+        private Long bound;
+
+        private void add(ProductChange change, Product product) {
+            changes.add(change);
+            products.add(product);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            long reservation = reserve();
+            try {
+                changeRepository.insertAll(changes);
+            } catch (RuntimeException e) {
+                abandon(reservation);
+                throw e;
+            }
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            for (ProductChange change : changes) {
+                first = Math.min(first, change.getSeq());
+                last = Math.max(last, change.getSeq());
+            }
+            bound = allocated(reservation, first, last);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductChangeLog.this);
+            if (bound == null) {
+                return;
+            }
+            if (status != STATUS_COMMITTED) {
+                complete(bound, List.of());
+                return;
+            }
+            // Flushed at commit, so the products now carry their final version and updated_at
+            for (int i = 0; i < changes.size(); i++) {
+                Product product = products.get(i);
+                changes.get(i).setProduct(product != null ? ProductDetail.of(product) : null);
+            }
+            complete(bound, changes);
+        }
+    }
+
+    private final class Waiter {
+
+        private final long since;
+        private final Integer limit;
+        private final DeferredResult<ProductChanges> result;
+
+        private Waiter(long since, Integer limit, DeferredResult<ProductChanges> result) {
+            this.since = since;
+            this.limit = limit;
+            this.result = result;
+        }
+
+        private void complete() {
+            try {
+                result.setResult(read(since, limit));
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        }
+    }
+
+    /**
+     * One open stream. signal() schedules a send of everything after the
+     * cursor; signals arriving while one runs make it go round again rather
+     * than start a second, so events leave in order.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicInteger signals = new AtomicInteger();
+        private volatile long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void signal() {
+            if (signals.getAndIncrement() == 0) {
+                try {
+                    streamExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close(e);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = signals.get();
+            while (true) {
+                try {
+                    ProductChanges batch;
+                    do {
+                        batch = read(cursor, maxLimit);
+                        for (ProductChange change : batch.getChanges()) {
+                            emitter.send(SseEmitter.event()
+                                    .id(String.valueOf(change.getSeq()))
+                                    .name(change.getType().name().toLowerCase())
+                                    .data(change, MediaType.APPLICATION_JSON));
+                        }
+                        cursor = batch.getNext();
+                    } while (batch.isHasMore());
+                } catch (IOException | IllegalStateException e) {
+                    close(null);
+                    return;
+                } catch (RuntimeException e) {
+                    close(e);
+                    return;
+                }
+                missed = signals.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void close(Throwable error) {
+            subscribers.remove(this);
+            if (error != null) {
+                logger.debug("Closing change stream at seq {}: {}", cursor, error.getMessage());
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.service;
+
+import com.example.model.Product;
+
+/**
+ * Published by ProductService for every product write. In-process read models
+ * listen with @TransactionalEventListener so they only see committed changes.
+ */
+public class ProductChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long productId;
+    private final Product product;
+
+    private ProductChangedEvent(Type type, Long productId, Product product) {
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(Type.SAVED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * The product as written, or null for deletions.
+     */
+    public Product getProduct() {
+        return product;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.model.CatalogVersion;
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+
+/**
+ * Strong entity tags for product resources, computed without loading or
+ * serializing products. A single product is tagged by id, updatedAt and
+ * stock, since buffered stock adjustments change the body without changing
+ * updatedAt; list responses are tagged by the catalog version (row count and
+ * latest updatedAt), the last buffered adjustment, plus the request path and
+ * query, since each page and filter has its own body.
+ *
+ * The catalog version costs one aggregate query and is reused for
+ * catalog-version-ttl-ms. Committed writes on this instance discard it at
+ * once, so only writes made through other instances can be missed, and for
+ * no longer than the TTL.
+ */
+@Component
+public class ProductETags {
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductMirrorReader mirrorReader;
+    private final StockBuffer stockBuffer;
+    private final long catalogVersionTtlNanos;
+
+    // Bumped on every committed write; a version computed across a bump is not kept
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CachedVersion catalogVersion;
+
+    public ProductETags(ProductRepository productRepository, ProductCache productCache,
+            ProductMirrorReader mirrorReader, StockBuffer stockBuffer,
+            @Value("${product.http.catalog-version-ttl-ms:1000}") long catalogVersionTtlMs) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.mirrorReader = mirrorReader;
+        this.stockBuffer = stockBuffer;
+        this.catalogVersionTtlNanos = catalogVersionTtlMs * 1_000_000;
+    }
+
+    /**
+     * The entity tag of a product as returned by the API.
+     */
+    public static String of(Product product) {
+        return tag(product.getId(), product.getUpdatedAt(), product.getStockQuantity());
+    }
+
+    /**
+     * The current entity tag of a product: taken from the cache when it holds
+     * the product, otherwise read as two columns. Null when the product does
+     * not exist, has buffered stock adjustments or the database cannot
+     * answer, in which case the caller should take the normal read path.
+     */
+    public String forProduct(Long id) {
+        Product cached = productCache.getIfPresent(id);
+        if (cached != null) {
+            return of(stockBuffer.overlay(cached));
+        }
+        if (mirrorReader.isDatabaseDegraded() || stockBuffer.isBuffered(id)) {
+            return null;
+        }
+        try {
+            return productRepository.findStampById(id)
+                    .map(stamp -> tag(id, stamp.getUpdatedAt(), stamp.getStockQuantity()))
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            if (!mirrorReader.recordDatabaseFailure(e)) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The entity tag of a list response. Callers must compute it before
+     * running the list query, so that a concurrent write can only make the
+     * tag older than the body, never newer.
+     */
+    public String forList(String pathAndQuery) {
+        return listTag(catalogVersion(), stockBuffer.lastSeq(), pathAndQuery);
+    }
+
+    /**
+     * The entity tag of a list response, from a catalog version as given by
+     * {@link #versionTag}, the last buffered stock adjustment (0 when there is
+     * no buffer) and the request path and query.
+     */
+    public static String listTag(String catalogVersion, long bufferSeq, String pathAndQuery) {
+        return "\"c" + catalogVersion + "-" + Long.toHexString(bufferSeq)
+                + "-" + Integer.toHexString(pathAndQuery.hashCode()) + "\"";
+    }
+
+    public static String versionTag(CatalogVersion version) {
+        return Long.toHexString(version.getProductCount()) + "-" + micros(version.getLastUpdatedAt());
+    }
+
+    /**
+     * Whether an If-None-Match header value matches the given tag, using the
+     * weak comparison RFC 9110 requires for If-None-Match.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        catalogVersion = null;
+    }
+
+    private String catalogVersion() {
+        CachedVersion cached = catalogVersion;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt < catalogVersionTtlNanos) {
+            return cached.value;
+        }
+        long startGeneration = generation.get();
+        CatalogVersion version = productRepository.findCatalogVersion();
+        String value = versionTag(version);
+        if (generation.get() == startGeneration) {
+            catalogVersion = new CachedVersion(value, now);
+        }
+        return value;
+    }
+
+    private static String tag(Long id, LocalDateTime updatedAt, Integer stockQuantity) {
+        return "\"p" + id + "-" + micros(updatedAt) + "-" + stockQuantity + "\"";
+    }
+
+    private static String micros(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return "0";
+        }
+        return Long.toHexString(timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000);
+    }
+
+    private static final class CachedVersion {
+
+        private final String value;
+        private final long loadedAt;
+
+        CachedVersion(String value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.service;
+
+import com.example.model.Product;
+
+/**
+ * An in-process read model over the product catalog. ProductIndexManager
+ * bulk-loads every index at startup and then keeps it in sync with committed
+ * ProductService writes; until loading finishes, isReady() is false and
+ * callers fall back to the database.
+ */
+public interface ProductIndex {
+
+    /**
+     * Add or replace a product from a committed write.
+     */
+    void index(Product product);
+
+    void remove(Long productId);
+
+    /**
+     * Add a product read during the initial load. Must not overwrite a newer
+     * entry from index() or resurrect one dropped by remove() while loading.
+     */
+    void load(Product product);
+
+    void markReady();
+
+    boolean isReady();
+}
@@ -0,0 +1,180 @@
+package com.example.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.model.Product;
+import com.example.repository.ProductBatchRepository;
+import com.example.repository.ProductRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Loads all ProductIndex beans with a single pass over the catalog once the
+ * application is ready, and applies committed product changes to them.
+ *
+ * <p>When a catalog snapshot is available, rows are taken from the mapped
+ * snapshot instead, and only the id and version of every product are read
+ * from the database to check them. Products whose version differs, and
+ * products newer than the snapshot, are loaded from the database; products
+ * deleted since are skipped. The result is the same as a full load.
+ */
+@Component
+public class ProductIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductIndexManager.class);
+
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    private final List<ProductIndex> indexes;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final CatalogSnapshotService snapshotService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductIndexManager(List<ProductIndex> indexes, ProductRepository productRepository,
+            EntityManager entityManager, CatalogSnapshotService snapshotService,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.index.load-timeout-seconds:600}") int loadTimeoutSeconds) {
+        this.indexes = indexes;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.snapshotService = snapshotService;
+        // Not read-only, so the load reads the writer when read-only transactions
+        // are routed to a replica: rows a lagging replica has not seen yet were
+        // changed before the load began, so no later event would correct them
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(loadTimeoutSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(this::load, "product-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (ProductIndex index : indexes) {
+            if (event.getType() == ProductChangedEvent.Type.DELETED) {
+                index.remove(event.getProductId());
+            } else {
+                index.index(event.getProduct());
+            }
+        }
+    }
+
+    void load() {
+        CatalogSnapshot snapshot = snapshotService.openLatest();
+        if (snapshot == null || !loadFromSnapshot(snapshot)) {
+            loadFromDatabase();
+        }
+    }
+
+    boolean loadFromSnapshot(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        try (snapshot) {
+            SnapshotMerge merge = transactionTemplate.execute(status -> {
+                SnapshotMerge result = new SnapshotMerge(snapshot);
+                productRepository.scanVersions(result);
+                List<Long> stale = result.stale;
+                for (int from = 0; from < stale.size(); from += RELOAD_BATCH_SIZE) {
+                    for (Product product : productRepository.findAllById(
+                            stale.subList(from, Math.min(from + RELOAD_BATCH_SIZE, stale.size())))) {
+                        loadIntoIndexes(product);
+                        entityManager.detach(product);
+                    }
+                }
+                return result;
+            });
+            indexes.forEach(ProductIndex::markReady);
+            logger.info("Loaded {} products from the snapshot taken at {} and {} from the database "
+                    + "into {} indexes in {} ms",
+                    merge.current, Instant.ofEpochMilli(snapshot.getTakenAt()),
+                    merge.stale.size(),
+                    indexes.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            // Only rows matching the database were loaded, so a full load can follow
+            logger.warn("Failed to load product indexes from the catalog snapshot; loading from the database", e);
+            return false;
+        }
+    }
+
+    void loadFromDatabase() {
+        long start = System.nanoTime();
+        try {
+            Long count = transactionTemplate.execute(status -> productRepository.withCursorFetch(() -> {
+                long loaded = 0;
+                try (Stream<Product> products = productRepository.streamAllOrderById()) {
+                    Iterator<Product> iterator = products.iterator();
+                    while (iterator.hasNext()) {
+                        Product product = iterator.next();
+                        loadIntoIndexes(product);
+                        entityManager.detach(product);
+                        loaded++;
+                    }
+                }
+                return loaded;
+            }));
+            indexes.forEach(ProductIndex::markReady);
+            logger.info("Loaded {} products into {} indexes in {} ms",
+                    count, indexes.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to load product indexes; queries will keep using the database", e);
+        }
+    }
+
+    private void loadIntoIndexes(Product product) {
+        for (ProductIndex index : indexes) {
+            index.load(product);
+        }
+    }
+
+    /**
+     * Walks the snapshot alongside the database's (id, version) pairs, both
+     * in id order, loading matching snapshot rows and collecting the ids of
+     * the rest.
+     */
+    private final class SnapshotMerge implements ProductBatchRepository.VersionCallback {
+
+        private final CatalogSnapshot snapshot;
+        private final List<Long> stale = new ArrayList<>();
+        private int row;
+        private long current;
+
+        private SnapshotMerge(CatalogSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void accept(long id, long version) {
+            int rows = snapshot.size();
+            while (row < rows && snapshot.id(row) < id) {
+                row++;
+            }
+            if (row < rows && snapshot.id(row) == id && snapshot.version(row) == version) {
+                loadIntoIndexes(snapshot.product(row));
+                current++;
+                row++;
+            } else {
+                stale.add(id);
+            }
+        }
+    }
+}
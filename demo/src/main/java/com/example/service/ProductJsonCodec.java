@@ -0,0 +1,137 @@
+package com.example.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+
+import com.example.model.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming JSON codec for the product documents mirrored to S3.
+ *
+ * Documents carry a schemaVersion field so readers can tell layouts apart.
+ * Encoding goes straight from the entity to UTF-8 bytes in a per-thread
+ * buffer that is reused across calls, so no intermediate String or
+ * ObjectMapper tree is built.
+ */
+@Component
+public class ProductJsonCodec {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(() -> new Buffer(INITIAL_BUFFER_SIZE));
+
+    /**
+     * Encode the product and return a view of the calling thread's buffer.
+     * The returned ByteBuffer is only valid until the next call on the same
+     * thread; callers must consume or copy it before encoding again.
+     */
+    public ByteBuffer encode(Product product) {
+        Buffer buffer = buffers.get();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new Buffer(INITIAL_BUFFER_SIZE);
+            buffers.set(buffer);
+        }
+        buffer.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeNumberField("schemaVersion", SCHEMA_VERSION);
+            generator.writeNumberField("id", product.getId());
+            generator.writeStringField("name", product.getName());
+            generator.writeStringField("description", product.getDescription());
+            if (product.getPrice() != null) {
+                generator.writeNumberField("price", product.getPrice());
+            } else {
+                generator.writeNullField("price");
+            }
+            if (product.getStockQuantity() != null) {
+                generator.writeNumberField("stockQuantity", product.getStockQuantity());
+            } else {
+                generator.writeNullField("stockQuantity");
+            }
+            writeTimestamp(generator, "createdAt", product.getCreatedAt());
+            writeTimestamp(generator, "updatedAt", product.getUpdatedAt());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode product " + product.getId(), e);
+        }
+        return buffer.view();
+    }
+
+    /**
+     * Decode a document written by {@link #encode}. Unknown fields are
+     * skipped so that newer writers stay readable.
+     */
+    public Product decode(byte[] json) {
+        Product product = new Product();
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Product document must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "schemaVersion" -> checkVersion(parser.getIntValue());
+                    case "id" -> product.setId(parser.getLongValue());
+                    case "name" -> product.setName(parser.getText());
+                    case "description" -> product.setDescription(parser.getText());
+                    case "price" -> product.setPrice(parser.getDecimalValue());
+                    case "stockQuantity" -> product.setStockQuantity(parser.getIntValue());
+                    case "createdAt" -> product.setCreatedAt(LocalDateTime.parse(parser.getText()));
+                    case "updatedAt" -> product.setUpdatedAt(LocalDateTime.parse(parser.getText()));
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed product document", e);
+        }
+        return product;
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, String field, LocalDateTime value)
+            throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value.toString());
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+
+    private static void checkVersion(int version) {
+        if (version > SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported product schema version " + version);
+        }
+    }
+
+    /** ByteArrayOutputStream that exposes its backing array without copying. */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.model.Product;
+
+/**
+ * The S3 copy of the catalog that ProductMirrorDispatcher writes and
+ * ProductMirrorReader falls back to. product.mirror.layout selects how it is
+ * stored: "object" (ProductMirrorPipeline) keeps one document per product,
+ * "segmented" (SegmentedProductMirror) batches documents into shared segment
+ * objects indexed by a manifest.
+ */
+public interface ProductMirror {
+
+    /**
+     * Store the product's document. The future completes once it is durable
+     * in S3; it fails if the write failed or the mirror is full.
+     */
+    CompletableFuture<Void> upsert(Product product);
+
+    CompletableFuture<Void> delete(Long productId);
+
+    /**
+     * Number of new products that can be submitted before the mirror starts
+     * rejecting them.
+     */
+    int remainingCapacity();
+
+    /**
+     * The product's JSON document, or null if the mirror has none.
+     */
+    CompletableFuture<byte[]> fetch(Long productId);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.example.repository.ProductOutboxRepository;
+import com.example.repository.ProductRepository;
+
+/**
+ * Drains the product outbox to S3 in the background.
+ *
+ * Events are read in batches and coalesced per product, so a burst of writes
+ * to one product costs a single S3 call. Upserts always mirror the product's
+ * current row rather than the state at the time of the event, which makes
+ * every dispatch idempotent and safe to retry. Failures are retried with
+ * exponential backoff and never block other products in the batch.
+ *
+ * S3 writes go through the ProductMirror and are not awaited: submitted
+ * events are leased for lease-ms and acknowledged on the task executor when
+ * the mirror completes them. Each poll reads no more events than the
+ * mirror can accept, so a slow S3 leaves work in the outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "product.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductMirrorDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductMirrorDispatcher.class);
+
+    private final ProductOutboxRepository outboxRepository;
+    private final ProductRepository productRepository;
+    private final ProductMirror mirror;
+    private final Executor ackExecutor;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public ProductMirrorDispatcher(ProductOutboxRepository outboxRepository,
+            ProductRepository productRepository,
+            ProductMirror mirror,
+            @Qualifier("applicationTaskExecutor") Executor ackExecutor,
+            @Value("${product.outbox.batch-size:100}") int batchSize,
+            @Value("${product.outbox.lease-ms:60000}") long leaseMs,
+            @Value("${product.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${product.outbox.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.outboxRepository = outboxRepository;
+        this.productRepository = productRepository;
+        this.mirror = mirror;
+        this.ackExecutor = ackExecutor;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+    }
+
+    @Scheduled(fixedDelayString = "${product.outbox.poll-interval-ms:500}")
+    public void dispatchPending() {
+        int fetched;
+        do {
+            fetched = dispatchBatch();
+        } while (fetched == batchSize);
+    }
+
+    /**
+     * Submit one batch of due events to the mirror.
+     *
+     * @return the number of events read from the outbox
+     */
+    public int dispatchBatch() {
+        int capacity = mirror.remainingCapacity();
+        if (capacity == 0) {
+            logger.debug("S3 mirror is full, leaving events in the outbox");
+            return 0;
+        }
+        List<ProductOutboxEvent> events = outboxRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(
+                LocalDateTime.now(), Limit.of(Math.min(batchSize, capacity)));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Events are ordered by id, so the last one seen per product wins
+        Map<Long, ProductOutboxEvent> latest = new LinkedHashMap<>();
+        Map<Long, Integer> attempts = new LinkedHashMap<>();
+        for (ProductOutboxEvent event : events) {
+            latest.put(event.getProductId(), event);
+            attempts.merge(event.getProductId(), event.getAttempts(), Math::max);
+        }
+        outboxRepository.lease(events.stream().map(ProductOutboxEvent::getId).toList(),
+                LocalDateTime.now().plus(lease));
+        logger.debug("Dispatching {} outbox events for {} products", events.size(), latest.size());
+
+        for (ProductOutboxEvent event : latest.values()) {
+            Long productId = event.getProductId();
+            mirror(event).whenCompleteAsync((ignored, error) -> {
+                if (error == null) {
+                    outboxRepository.deleteDispatched(productId, event.getId());
+                } else {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    int attempt = attempts.get(productId) + 1;
+                    LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempt));
+                    logger.warn("Mirroring product {} to S3 failed (attempt {}), retrying at {}: {}",
+                            productId, attempt, nextAttemptAt, cause.getMessage());
+                    outboxRepository.markFailed(productId, event.getId(), nextAttemptAt,
+                            truncate(cause.getMessage()));
+                }
+            }, ackExecutor);
+        }
+        return events.size();
+    }
+
+    private CompletableFuture<Void> mirror(ProductOutboxEvent event) {
+        try {
+            if (event.getEventType() == ProductOutboxEvent.EventType.UPSERT) {
+                Optional<Product> product = productRepository.findById(event.getProductId());
+                if (product.isPresent()) {
+                    return mirror.upsert(product.get());
+                }
+            }
+            return mirror.delete(event.getProductId());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        int shift = Math.min(attempt - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
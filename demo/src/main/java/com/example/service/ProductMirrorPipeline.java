@@ -0,0 +1,302 @@
+package com.example.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.model.Product;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Non-blocking writer of product documents to S3, one object per product
+ * (product.mirror.layout=object, the default).
+ *
+ * At most max-in-flight requests are outstanding at once and at most
+ * max-pending operations are accepted; beyond that submissions are rejected
+ * so callers can back off instead of queueing without bound. Operations on
+ * the same product never run concurrently: while one is in flight, newer
+ * submissions for that product replace each other and only the latest is
+ * sent once the current one completes. Futures of replaced operations
+ * complete with the operation that superseded them.
+ */
+@Component
+@ConditionalOnProperty(name = "product.mirror.layout", havingValue = "object", matchIfMissing = true)
+public class ProductMirrorPipeline implements ProductMirror, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductMirrorPipeline.class);
+
+    private final S3AsyncClient s3AsyncClient;
+    private final ProductJsonCodec jsonCodec;
+    private final S3RequestMetrics metrics;
+    private final String bucketName;
+    private final int maxInFlight;
+    private final int maxPending;
+
+    // Guarded by this
+    private final Map<Long, Operation> active = new HashMap<>();
+    private final Map<Long, Operation> queued = new HashMap<>();
+    private final ArrayDeque<Operation> waitingForSlot = new ArrayDeque<>();
+    private int inFlight;
+    private int pending;
+    private long completed;
+    private long failed;
+    private long coalesced;
+    private long rejected;
+    private long throttled;
+
+    public ProductMirrorPipeline(S3AsyncClient s3AsyncClient,
+            ProductJsonCodec jsonCodec,
+            S3RequestMetrics metrics,
+            @Value("${data.bucket.name}") String bucketName,
+            @Value("${product.mirror.max-in-flight:64}") int maxInFlight,
+            @Value("${product.mirror.max-pending:10000}") int maxPending) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+        this.bucketName = bucketName;
+        this.maxInFlight = maxInFlight;
+        this.maxPending = maxPending;
+        logger.info("ProductMirrorPipeline initialized with {} requests in flight and {} pending at most",
+                maxInFlight, maxPending);
+    }
+
+    @Override
+    public CompletableFuture<Void> upsert(Product product) {
+        // Encoded on the caller's thread: the codec buffer is reused per thread
+        AsyncRequestBody body = AsyncRequestBody.fromByteBuffer(jsonCodec.encode(product));
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(S3Service.productKey(product.getId()))
+                .contentType("application/json")
+                .build();
+        return submit(product.getId(),
+                () -> metrics.recordAsync("put", () -> s3AsyncClient.putObject(request, body)));
+    }
+
+    /**
+     * Delete the product's document. S3 deletes are idempotent, so no HEAD
+     * request is made to check that the object exists first.
+     */
+    @Override
+    public CompletableFuture<Void> delete(Long productId) {
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(S3Service.productKey(productId))
+                .build();
+        return submit(productId,
+                () -> metrics.recordAsync("delete", () -> s3AsyncClient.deleteObject(request)));
+    }
+
+    /**
+     * A return value of zero is counted as a throttled poll.
+     */
+    @Override
+    public synchronized int remainingCapacity() {
+        int remaining = Math.max(0, maxPending - pending);
+        if (remaining == 0) {
+            throttled++;
+        }
+        return remaining;
+    }
+
+    /**
+     * Read the product's document. Reads do not go through the pipeline's
+     * limits, which only apply to writes.
+     */
+    @Override
+    public CompletableFuture<byte[]> fetch(Long productId) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(S3Service.productKey(productId))
+                .build();
+        return metrics.recordAsync("get", () -> s3AsyncClient.getObject(request, AsyncResponseTransformer.toBytes()))
+                .handle((bytes, error) -> {
+                    if (error == null) {
+                        return bytes.asByteArrayUnsafe();
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof NoSuchKeyException) {
+                        return null;
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inFlight", inFlight);
+        result.put("maxInFlight", maxInFlight);
+        result.put("waitingForSlot", waitingForSlot.size());
+        result.put("pending", pending);
+        result.put("maxPending", maxPending);
+        result.put("completed", completed);
+        result.put("failed", failed);
+        result.put("coalesced", coalesced);
+        result.put("rejected", rejected);
+        result.put("throttled", throttled);
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.mirror.in.flight", this, pipeline -> pipeline.stat("inFlight"))
+                .description("S3 mirror requests currently outstanding")
+                .register(registry);
+        Gauge.builder("product.mirror.pending", this, pipeline -> pipeline.stat("pending"))
+                .description("S3 mirror operations accepted and not yet completed")
+                .register(registry);
+        for (String outcome : List.of("completed", "failed", "coalesced", "rejected", "throttled")) {
+            FunctionCounter.builder("product.mirror.operations", this, pipeline -> pipeline.stat(outcome))
+                    .description("S3 mirror operations by outcome; rejected and throttled signal backpressure")
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    private synchronized double stat(String name) {
+        return switch (name) {
+            case "inFlight" -> inFlight;
+            case "pending" -> pending;
+            case "completed" -> completed;
+            case "failed" -> failed;
+            case "coalesced" -> coalesced;
+            case "rejected" -> rejected;
+            case "throttled" -> throttled;
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    private CompletableFuture<Void> submit(Long productId, Supplier<CompletableFuture<?>> request) {
+        Operation operation = new Operation(productId, request);
+        boolean start = false;
+        synchronized (this) {
+            if (active.containsKey(productId)) {
+                Operation replaced = queued.get(productId);
+                if (replaced != null) {
+                    operation.superseded.add(replaced);
+                    operation.superseded.addAll(replaced.superseded);
+                    coalesced++;
+                } else if (!admit()) {
+                    return rejectedFuture(productId);
+                }
+                queued.put(productId, operation);
+            } else {
+                if (!admit()) {
+                    return rejectedFuture(productId);
+                }
+                active.put(productId, operation);
+                start = reserveSlot(operation);
+            }
+        }
+        if (start) {
+            start(operation);
+        }
+        return operation.result;
+    }
+
+    private boolean admit() {
+        if (pending >= maxPending) {
+            rejected++;
+            return false;
+        }
+        pending++;
+        return true;
+    }
+
+    private boolean reserveSlot(Operation operation) {
+        if (inFlight < maxInFlight) {
+            inFlight++;
+            return true;
+        }
+        waitingForSlot.addLast(operation);
+        return false;
+    }
+
+    private void start(Operation operation) {
+        CompletableFuture<?> response;
+        try {
+            response = operation.request.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((ignored, error) -> finish(operation, error));
+    }
+
+    private void finish(Operation operation, Throwable error) {
+        List<Operation> toStart = new ArrayList<>();
+        synchronized (this) {
+            active.remove(operation.productId);
+            pending--;
+            inFlight--;
+            if (error == null) {
+                completed++;
+            } else {
+                failed++;
+            }
+            Operation next = queued.remove(operation.productId);
+            if (next != null) {
+                active.put(operation.productId, next);
+                waitingForSlot.addLast(next);
+            }
+            while (inFlight < maxInFlight && !waitingForSlot.isEmpty()) {
+                inFlight++;
+                toStart.add(waitingForSlot.pollFirst());
+            }
+        }
+        operation.complete(error);
+        toStart.forEach(this::start);
+    }
+
+    private static CompletableFuture<Void> rejectedFuture(Long productId) {
+        return CompletableFuture.failedFuture(new RejectedExecutionException(
+                "S3 mirror pipeline is full, product " + productId + " not submitted"));
+    }
+
+    private static final class Operation {
+        private final Long productId;
+        private final Supplier<CompletableFuture<?>> request;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final List<Operation> superseded = new ArrayList<>();
+
+        private Operation(Long productId, Supplier<CompletableFuture<?>> request) {
+            this.productId = productId;
+            this.request = request;
+        }
+
+        private void complete(Throwable error) {
+            if (error == null) {
+                result.complete(null);
+                superseded.forEach(operation -> operation.result.complete(null));
+            } else {
+                result.completeExceptionally(error);
+                superseded.forEach(operation -> operation.result.completeExceptionally(error));
+            }
+        }
+    }
+}
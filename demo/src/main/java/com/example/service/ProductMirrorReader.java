@@ -0,0 +1,214 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.example.model.Product;
+
+/**
+ * Reads products from the S3 mirror while the database is unavailable.
+ *
+ * A connection or query timeout recorded through recordDatabaseFailure marks
+ * the database as degraded for degraded-seconds, during which ProductService
+ * reads skip it entirely rather than waiting out another timeout per request.
+ * Fetched documents are kept in a local directory: copies younger than
+ * cache-ttl-seconds are served without contacting S3, and older copies are
+ * served only when S3 cannot be reached either. Mirror reads may lag the
+ * database by the outbox delay, and a product deleted within the TTL can
+ * still be served from the local copy.
+ */
+@Component
+public class ProductMirrorReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductMirrorReader.class);
+
+    private final ProductMirror mirror;
+    private final ProductJsonCodec jsonCodec;
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final Duration cacheTtl;
+    private final Duration s3Timeout;
+    private final Duration degradedPeriod;
+
+    private volatile long degradedUntilNanos = System.nanoTime();
+    private volatile RuntimeException lastDatabaseFailure;
+
+    public ProductMirrorReader(ProductMirror mirror,
+            ProductJsonCodec jsonCodec,
+            @Value("${product.fallback.enabled:true}") boolean enabled,
+            @Value("${product.fallback.cache-dir:${java.io.tmpdir}/product-mirror-cache}") String cacheDir,
+            @Value("${product.fallback.cache-ttl-seconds:300}") long cacheTtlSeconds,
+            @Value("${product.fallback.s3-timeout-ms:2000}") long s3TimeoutMs,
+            @Value("${product.fallback.degraded-seconds:10}") long degradedSeconds) {
+        this.mirror = mirror;
+        this.jsonCodec = jsonCodec;
+        this.enabled = enabled;
+        this.cacheDir = Path.of(cacheDir);
+        this.cacheTtl = Duration.ofSeconds(cacheTtlSeconds);
+        this.s3Timeout = Duration.ofMillis(s3TimeoutMs);
+        this.degradedPeriod = Duration.ofSeconds(degradedSeconds);
+        logger.info("ProductMirrorReader {} with local cache at {}", enabled ? "enabled" : "disabled", cacheDir);
+    }
+
+    public boolean isDatabaseDegraded() {
+        return enabled && System.nanoTime() - degradedUntilNanos < 0;
+    }
+
+    /**
+     * Record a failed database read. Returns true, and starts or extends the
+     * degraded period, when the failure means the database is unreachable or
+     * too slow rather than that the query itself is wrong.
+     */
+    public boolean recordDatabaseFailure(RuntimeException failure) {
+        if (!enabled || !isUnavailable(failure)) {
+            return false;
+        }
+        if (!isDatabaseDegraded()) {
+            logger.warn("Database unavailable, serving product reads from the S3 mirror for {}s: {}",
+                    degradedPeriod.toSeconds(), failure.getMessage());
+        }
+        lastDatabaseFailure = failure;
+        degradedUntilNanos = System.nanoTime() + degradedPeriod.toNanos();
+        return true;
+    }
+
+    /**
+     * Exception to throw when a product is needed while the database is
+     * degraded and the mirror does not have it. Its cause is the database
+     * failure that started the degraded period.
+     */
+    public RuntimeException unavailable(Long productId) {
+        return new DataAccessResourceFailureException(
+                "Database unavailable and product " + productId + " not found in the S3 mirror",
+                lastDatabaseFailure);
+    }
+
+    /**
+     * Read the given products from the local cache or S3. S3 fetches run
+     * concurrently and share one timeout; ids that cannot be read are absent
+     * from the result.
+     */
+    public Map<Long, Product> readAll(Collection<Long> ids) {
+        Map<Long, Product> result = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<byte[]>> fetches = new HashMap<>();
+        for (Long id : ids) {
+            byte[] cached = readCached(id, cacheTtl);
+            if (cached != null) {
+                decode(id, cached, result);
+            } else {
+                fetches.put(id, mirror.fetch(id));
+            }
+        }
+
+        long deadline = System.nanoTime() + s3Timeout.toNanos();
+        for (Map.Entry<Long, CompletableFuture<byte[]>> fetch : fetches.entrySet()) {
+            Long id = fetch.getKey();
+            try {
+                byte[] json = fetch.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (json != null) {
+                    writeCached(id, json);
+                    decode(id, json, result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Reading product {} from S3 failed, trying the local copy: {}", id, e.toString());
+                byte[] stale = readCached(id, null);
+                if (stale != null) {
+                    decode(id, stale, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void decode(Long id, byte[] json, Map<Long, Product> result) {
+        try {
+            result.put(id, jsonCodec.decode(json));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable mirror document for product {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Cached document for the product, or null when there is none or it is
+     * older than maxAge. A null maxAge accepts any age.
+     */
+    private byte[] readCached(Long id, Duration maxAge) {
+        Path file = cacheFile(id);
+        try {
+            if (maxAge != null
+                    && Files.getLastModifiedTime(file).toInstant().isBefore(Instant.now().minus(maxAge))) {
+                return null;
+            }
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read cached mirror document {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCached(Long id, byte[] json) {
+        Path file = cacheFile(id);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), id + "-", ".tmp");
+            Files.write(temp, json);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache mirror document {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Spread files over 256 directories so a large catalog does not end up in one
+    private Path cacheFile(Long id) {
+        return cacheDir.resolve(String.format("%02x", id & 0xff)).resolve(id + ".json");
+    }
+
+    /**
+     * Only failures to get a connection and query timeouts count. Other
+     * transient failures, such as lock conflicts and deadlocks, mean the
+     * database is up and busy with this row, and retrying is up to the
+     * caller.
+     */
+    private static boolean isUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotGetJdbcConnectionException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+
+/**
+ * In-memory price index for range queries. Entries are (price in cents, id)
+ * pairs kept sorted in blocks of parallel primitive arrays, with the rank
+ * of each block's first entry alongside, so the rank of any key is two
+ * binary searches away: range counts and the start of a page take
+ * O(log n) and a page is then read sequentially. A write shifts at most
+ * one block and refreshes the block ranks; during the initial load the
+ * ranks are only computed once, by markReady, and range queries must wait
+ * for it.
+ *
+ * Results are ordered by price and then id; paging resumes after a (price
+ * in cents, id) cursor, so a page continues in the same place even if the
+ * product it ended on has since been repriced or deleted.
+ */
+@Component
+public class ProductPriceIndex implements ProductIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceIndex.class);
+
+    private static final int BLOCK_SIZE = 512;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Block> blocks = new ArrayList<>();
+    // Rank of the first entry of each block
+    private int[] blockStarts = new int[0];
+    private final Map<Long, Long> priceById = new HashMap<>();
+    // Ids written or removed by live updates while the initial load runs
+    private final Set<Long> touchedWhileLoading = new HashSet<>();
+    private volatile boolean ready;
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(product.getId());
+            }
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(productId);
+            }
+            Long cents = priceById.remove(productId);
+            if (cents != null) {
+                delete(cents, productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!touchedWhileLoading.contains(product.getId())) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            touchedWhileLoading.clear();
+            updateBlockStarts();
+            ready = true;
+            logger.info("Price index ready with {} products in {} blocks", priceById.size(), blocks.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Return up to limit products priced within [minCents, maxCents],
+     * ordered by price and id, starting after the given cursor (or from the
+     * lowest price when after is null). Each product is returned as its
+     * (price in cents, id) cursor.
+     */
+    public List<KeysetCursor> range(long minCents, long maxCents, KeysetCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = rank(minCents, Long.MIN_VALUE, false);
+            if (after != null) {
+                from = Math.max(from, rank(after.getKey(), after.getId(), true));
+            }
+            int to = Math.min(rank(maxCents, Long.MAX_VALUE, true), from + Math.max(limit, 0));
+            List<KeysetCursor> results = new ArrayList<>(Math.max(to - from, 0));
+            if (from >= to) {
+                return results;
+            }
+            int index = blockOfRank(from);
+            Block block = blocks.get(index);
+            int position = from - blockStarts[index];
+            for (int rank = from; rank < to; rank++) {
+                if (position == block.size) {
+                    block = blocks.get(++index);
+                    position = 0;
+                }
+                results.add(new KeysetCursor(block.cents[position], block.ids[position]));
+                position++;
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of products priced within [minCents, maxCents].
+     */
+    public long count(long minCents, long maxCents) {
+        if (minCents > maxCents) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return rank(maxCents, Long.MAX_VALUE, true) - rank(minCents, Long.MIN_VALUE, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return priceById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A price in cents, rounded as given.
+     *
+     * @throws IllegalArgumentException if the price does not fit in a long
+     */
+    public static long toCents(BigDecimal price, RoundingMode rounding) {
+        try {
+            return price.movePointRight(2).setScale(0, rounding).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price out of range: " + price);
+        }
+    }
+
+    static long toCents(BigDecimal price) {
+        return toCents(price, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Number of entries before (cents, id), or up to and including it when
+     * inclusive is set.
+     */
+    private int rank(long cents, long id, boolean inclusive) {
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        int index = blockOf(cents, id);
+        return blockStarts[index] + blocks.get(index).search(cents, id, inclusive);
+    }
+
+    /**
+     * The last block whose first entry is not after (cents, id), or the
+     * first block when every block starts after it.
+     */
+    private int blockOf(long cents, long id) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            Block block = blocks.get(middle);
+            if (compare(block.cents[0], block.ids[0], cents, id) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private int blockOfRank(int rank) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (blockStarts[middle] <= rank) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void put(Product product) {
+        Long previous = priceById.remove(product.getId());
+        if (previous != null) {
+            delete(previous, product.getId());
+        }
+        if (product.getPrice() == null) {
+            return;
+        }
+        long cents = toCents(product.getPrice());
+        insert(cents, product.getId());
+        priceById.put(product.getId(), cents);
+    }
+
+    private void insert(long cents, long id) {
+        if (blocks.isEmpty()) {
+            blocks.add(new Block());
+        }
+        int index = blockOf(cents, id);
+        Block block = blocks.get(index);
+        block.insert(block.search(cents, id, false), cents, id);
+        if (block.size == BLOCK_SIZE) {
+            blocks.add(index + 1, block.split());
+        }
+        if (ready) {
+            updateBlockStarts();
+        }
+    }
+
+    private void delete(long cents, long id) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        int index = blockOf(cents, id);
+        Block block = blocks.get(index);
+        int position = block.search(cents, id, false);
+        if (position == block.size || block.cents[position] != cents || block.ids[position] != id) {
+            return;
+        }
+        block.delete(position);
+        if (block.size == 0) {
+            blocks.remove(index);
+        }
+        if (ready) {
+            updateBlockStarts();
+        }
+    }
+
+    private void updateBlockStarts() {
+        if (blockStarts.length != blocks.size()) {
+            blockStarts = new int[blocks.size()];
+        }
+        int start = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            blockStarts[i] = start;
+            start += blocks.get(i).size;
+        }
+    }
+
+    private static int compare(long cents, long id, long otherCents, long otherId) {
+        int byPrice = Long.compare(cents, otherCents);
+        return byPrice != 0 ? byPrice : Long.compare(id, otherId);
+    }
+
+    /**
+     * Up to BLOCK_SIZE entries in (cents, id) order; full blocks are split
+     * in half.
+     */
+    private static final class Block {
+        private final long[] cents = new long[BLOCK_SIZE];
+        private final long[] ids = new long[BLOCK_SIZE];
+        private int size;
+
+        /**
+         * Position of the first entry after (cents, id) when inclusive is
+         * set, or not before it otherwise.
+         */
+        private int search(long keyCents, long keyId, boolean inclusive) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int order = compare(cents[middle], ids[middle], keyCents, keyId);
+                if (order < 0 || inclusive && order == 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void insert(int position, long keyCents, long keyId) {
+            System.arraycopy(cents, position, cents, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            cents[position] = keyCents;
+            ids[position] = keyId;
+            size++;
+        }
+
+        private void delete(int position) {
+            System.arraycopy(cents, position + 1, cents, position, size - position - 1);
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+
+        private Block split() {
+            Block upper = new Block();
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(cents, half, upper.cents, 0, upper.size);
+            System.arraycopy(ids, half, upper.ids, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+}
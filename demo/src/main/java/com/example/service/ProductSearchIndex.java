@@ -0,0 +1,300 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+
+/**
+ * In-memory trigram index over product names (and optionally descriptions)
+ * answering case-insensitive substring search without a table scan.
+ *
+ * A query of three or more characters is resolved by intersecting the
+ * posting sets of its trigrams and then confirming each candidate with a
+ * real substring check, so results match the old LIKE '%name%' semantics.
+ * A two-character query is looked up in the bigram postings; queries shorter
+ * than MIN_QUERY_LENGTH match nothing and are rejected by ProductService.
+ * Matches are ranked exact
+ * name, name prefix, word prefix, name substring, description only; ties
+ * are broken by id. Paging resumes after a (rank, id) cursor, so a page
+ * continues in the same order even if the product it ended on has since
+ * been renamed or deleted. ProductBatchRepository.searchRanked ranks
+ * matches in the database the same way.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    /**
+     * The shortest query that is searched, as for the MySQL ngram parser.
+     */
+    public static final int MIN_QUERY_LENGTH = 2;
+    private static final int NO_MATCH = -1;
+
+    static final int EXACT = 4;
+    static final int PREFIX = 3;
+    static final int WORD_PREFIX = 2;
+    static final int SUBSTRING = 1;
+    static final int DESCRIPTION = 0;
+
+    private static final Comparator<Match> RANK_ORDER =
+            Comparator.comparingInt((Match m) -> -m.score).thenComparingLong(m -> m.id);
+
+    private final boolean indexDescription;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    // Ids written or removed by live updates while the initial load runs
+    private final Set<Long> touchedWhileLoading = new HashSet<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(@Value("${product.search.index-description:false}") boolean indexDescription) {
+        this.indexDescription = indexDescription;
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(product.getId());
+            }
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(productId);
+            }
+            Document removed = documents.remove(productId);
+            if (removed != null) {
+                unpost(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!touchedWhileLoading.contains(product.getId())) {
+                put(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            touchedWhileLoading.clear();
+            ready = true;
+            logger.info("Search index ready with {} products and {} bigrams and trigrams", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Return up to limit matches in rank order, starting after the given
+     * cursor (or from the top when after is null). Each match is returned as
+     * its (rank, id) cursor.
+     */
+    public List<KeysetCursor> search(String query, KeysetCursor after, int limit) {
+        String term = normalize(query);
+        if (term.length() < MIN_QUERY_LENGTH || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Max-heap on rank order so the worst of the current top results is evicted first
+            PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, RANK_ORDER.reversed());
+            for (Long id : candidates(term)) {
+                Document document = documents.get(id);
+                int score = score(document, term);
+                if (score == NO_MATCH) {
+                    continue;
+                }
+                if (after != null && (score > after.getKey() || score == after.getKey() && id <= after.getId())) {
+                    continue;
+                }
+                top.offer(new Match(id, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<Match> matches = new ArrayList<>(top);
+            matches.sort(RANK_ORDER);
+            List<KeysetCursor> results = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                results.add(new KeysetCursor(match.score, match.id));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private Iterable<Long> candidates(String term) {
+        if (term.length() < GRAM) {
+            Set<Long> posting = postings.get(term);
+            return posting != null ? posting : Collections.emptyList();
+        }
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : trigrams(term)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        return result;
+    }
+
+    private int score(Document document, String term) {
+        String name = document.name;
+        if (name.equals(term)) {
+            return EXACT;
+        }
+        if (name.startsWith(term)) {
+            return PREFIX;
+        }
+        int position = name.indexOf(term);
+        if (position > 0) {
+            while (position > 0) {
+                if (!Character.isLetterOrDigit(name.charAt(position - 1))) {
+                    return WORD_PREFIX;
+                }
+                position = name.indexOf(term, position + 1);
+            }
+            return SUBSTRING;
+        }
+        if (document.description != null && document.description.contains(term)) {
+            return DESCRIPTION;
+        }
+        return NO_MATCH;
+    }
+
+    private void put(Product product) {
+        Document previous = documents.remove(product.getId());
+        if (previous != null) {
+            unpost(previous);
+        }
+        String description = indexDescription && product.getDescription() != null
+                ? normalize(product.getDescription()) : null;
+        Document document = new Document(product.getId(), normalize(product.getName()), description);
+        documents.put(document.id, document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id);
+        }
+    }
+
+    private void unpost(Document document) {
+        for (String gram : document.grams()) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(document.id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * A query or name as the index compares it: trimmed and lower-cased.
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String text) {
+        return addGrams(text, GRAM, new HashSet<>());
+    }
+
+    private static Set<String> addGrams(String text, int length, Set<String> grams) {
+        for (int i = 0; i + length <= text.length(); i++) {
+            grams.add(text.substring(i, i + length));
+        }
+        return grams;
+    }
+
+    private static final class Document {
+        private final Long id;
+        private final String name;
+        private final String description;
+
+        private Document(Long id, String name, String description) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+        }
+
+        // Bigrams as well as trigrams, so two-character queries have postings too
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(name, MIN_QUERY_LENGTH, grams);
+            addGrams(name, GRAM, grams);
+            if (description != null) {
+                addGrams(description, MIN_QUERY_LENGTH, grams);
+                addGrams(description, GRAM, grams);
+            }
+            return grams;
+        }
+    }
+
+    private static final class Match {
+        private final long id;
+        private final int score;
+
+        private Match(long id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -1,80 +1,433 @@
 package com.example.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.exception.InsufficientStockException;
 import com.example.exception.ResourceNotFoundException;
+import com.example.model.BulkItemResult;
+import com.example.model.KeysetCursor;
 import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.example.model.ProductPage;
+import com.example.model.ProductSummary;
+import com.example.repository.ProductOutboxRepository;
 import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
 
 @Service
 public class ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    // ngram_token_size of the FULLTEXT parser; shorter queries cannot use the index
+    private static final int FULL_TEXT_MIN_LENGTH = 2;
     
     private final ProductRepository productRepository;
-    private final S3Service s3Service;
+    private final ProductOutboxRepository outboxRepository;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductPriceIndex priceIndex;
+    private final ProductMirrorReader mirrorReader;
+    private final StockBuffer stockBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter exportWriter;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+    private final int exportFlushRows;
+    private final int maxBatchSize;
+    private final int maxWriteAttempts;
+    private final boolean fullTextSearch;
+    private final boolean searchDescription;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, S3Service s3Service) {
+    public ProductService(ProductRepository productRepository, ProductOutboxRepository outboxRepository,
+            ProductCache productCache, ProductSearchIndex searchIndex, ProductPriceIndex priceIndex,
+            ProductMirrorReader mirrorReader, StockBuffer stockBuffer, ApplicationEventPublisher eventPublisher,
+            EntityManager entityManager, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${product.page.default-limit:50}") int defaultPageLimit,
+            @Value("${product.page.max-limit:500}") int maxPageLimit,
+            @Value("${product.export.flush-rows:500}") int exportFlushRows,
+            @Value("${product.batch.max-size:1000}") int maxBatchSize,
+            @Value("${product.write.max-attempts:3}") int maxWriteAttempts,
+            @Value("${product.search.full-text:true}") boolean fullTextSearch,
+            @Value("${product.search.index-description:false}") boolean searchDescription) {
         this.productRepository = productRepository;
-        this.s3Service = s3Service;
+        this.outboxRepository = outboxRepository;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.priceIndex = priceIndex;
+        this.mirrorReader = mirrorReader;
+        this.stockBuffer = stockBuffer;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+        this.exportFlushRows = exportFlushRows;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.fullTextSearch = fullTextSearch;
+        this.searchDescription = searchDescription;
     }
 
-    public List<Product> getAllProducts() {
-        logger.info("Fetching all products");
-        return productRepository.findAll();
+    /**
+     * A page of product summaries in id order. List queries select summary
+     * columns straight into DTOs in a read-only transaction, so rows are not
+     * hydrated as entities nor tracked for dirty checking.
+     */
+    @Transactional(readOnly = true)
+    public ProductPage getAllProducts(Long after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Fetching products after id {} (limit {})", after, pageSize);
+        return ProductPage.of(stockBuffer.overlay(productRepository.findByIdGreaterThanOrderByIdAsc(
+                cursor(after), Limit.of(pageSize + 1), ProductSummary.class)), pageSize);
     }
 
+    /**
+     * Load a product through the cache. While the database is unavailable the
+     * product is read from the S3 mirror instead; see ProductMirrorReader.
+     * Buffered stock adjustments are included.
+     */
     public Product getProductById(Long id) {
-        logger.info("Fetching product with id: {}", id);
-        return productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        logger.debug("Fetching product with id: {}", id);
+        Product product;
+        if (mirrorReader.isDatabaseDegraded()) {
+            product = readFromMirror(id);
+        } else {
+            try {
+                product = productCache.get(id, key -> productRepository.findById(key).orElse(null));
+            } catch (RuntimeException e) {
+                if (!mirrorReader.recordDatabaseFailure(e)) {
+                    throw e;
+                }
+                product = readFromMirror(id);
+            }
+        }
+        if (product == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        return stockBuffer.overlay(product);
+    }
+
+    /**
+     * Load the given products through the cache, preserving the order of ids
+     * and skipping any that no longer exist. While the database is unavailable
+     * products missing from the cache are read from the S3 mirror, and any
+     * the mirror cannot provide are skipped as well. Stock is as stored,
+     * without buffered adjustments.
+     */
+    public List<Product> getProductsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> found;
+        if (mirrorReader.isDatabaseDegraded()) {
+            found = readAllFromMirror(ids);
+        } else {
+            try {
+                found = productCache.getAll(ids, missing -> {
+                    Map<Long, Product> loaded = new HashMap<>();
+                    for (Product product : productRepository.findAllById(new ArrayList<>(missing))) {
+                        loaded.put(product.getId(), product);
+                    }
+                    return loaded;
+                });
+            } catch (RuntimeException e) {
+                if (!mirrorReader.recordDatabaseFailure(e)) {
+                    throw e;
+                }
+                found = readAllFromMirror(ids);
+            }
+        }
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return productCache.getStats();
+    }
+
+    /**
+     * Products whose name contains the given text, best matches first and
+     * then by id. Served from the search index once it is loaded and from the
+     * database, ranked the same way, while it is still warming up, so a
+     * client paging across the switch sees one consistent order.
+     *
+     * @throws IllegalArgumentException if the trimmed name is shorter than
+     *         ProductSearchIndex.MIN_QUERY_LENGTH
+     */
+    public ProductPage searchByName(String name, String after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Searching products with name containing: {} after {} (limit {})", name, after, pageSize);
+        String term = ProductSearchIndex.normalize(name);
+        if (term.length() < ProductSearchIndex.MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "name must be at least " + ProductSearchIndex.MIN_QUERY_LENGTH + " characters");
+        }
+        KeysetCursor cursor = after != null ? KeysetCursor.parse(after) : null;
+        List<KeysetCursor> matches;
+        List<ProductSummary> rows;
+        if (searchIndex.isReady()) {
+            matches = searchIndex.search(term, cursor, pageSize + 1);
+            rows = summaries(getProductsInOrder(ids(matches)));
+        } else {
+            matches = searchDatabase(term, cursor, pageSize + 1);
+            rows = summariesInOrder(ids(matches));
+        }
+        Map<Long, KeysetCursor> positions = new HashMap<>();
+        for (KeysetCursor match : matches) {
+            positions.put(match.getId(), match);
+        }
+        return ProductPage.of(stockBuffer.overlay(rows), pageSize,
+                row -> positions.get(row.getId()).toString());
+    }
+
+    /**
+     * Ranked substring search in the database, used until the search index
+     * is loaded. Goes through the FULLTEXT indexes when full-text is enabled
+     * and the query is at least one ngram long; otherwise a LIKE scan.
+     */
+    private List<KeysetCursor> searchDatabase(String term, KeysetCursor after, int rows) {
+        boolean fullText = fullTextSearch && term.replace('"', ' ').trim().length() >= FULL_TEXT_MIN_LENGTH;
+        return productRepository.searchRanked(term, searchDescription, fullText, after, rows);
+    }
+
+    private List<ProductSummary> summariesInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductSummary> found = new HashMap<>();
+        for (ProductSummary summary : productRepository.findByIdInOrderByIdAsc(ids, ProductSummary.class)) {
+            found.put(summary.getId(), summary);
+        }
+        List<ProductSummary> summaries = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductSummary summary = found.get(id);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
+
+    private static List<Long> ids(List<KeysetCursor> matches) {
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (KeysetCursor match : matches) {
+            ids.add(match.getId());
+        }
+        return ids;
     }
 
-    public List<Product> searchByName(String name) {
-        logger.info("Searching products with name containing: {}", name);
-        return productRepository.findByNameContainingIgnoreCase(name);
+    /**
+     * Products priced within [min, max], ordered by price and then id, with
+     * the total match count. Served from the price index once it is loaded,
+     * and from the database in the same order while it is still warming up.
+     * The bounds are rounded inwards to whole cents.
+     */
+    public ProductPage findByPriceRange(BigDecimal min, BigDecimal max, String after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Finding products with price between {} and {} after {} (limit {})", min, max, after, pageSize);
+        long minCents = ProductPriceIndex.toCents(min, RoundingMode.CEILING);
+        long maxCents = ProductPriceIndex.toCents(max, RoundingMode.FLOOR);
+        KeysetCursor cursor = after != null ? KeysetCursor.parse(after) : null;
+        if (priceIndex.isReady()) {
+            List<KeysetCursor> matches = priceIndex.range(minCents, maxCents, cursor, pageSize + 1);
+            Map<Long, KeysetCursor> positions = new HashMap<>();
+            for (KeysetCursor match : matches) {
+                positions.put(match.getId(), match);
+            }
+            return ProductPage.of(stockBuffer.overlay(summaries(getProductsInOrder(ids(matches)))), pageSize,
+                            row -> positions.get(row.getId()).toString())
+                    .withTotalCount(priceIndex.count(minCents, maxCents));
+        }
+        if (minCents > maxCents) {
+            return new ProductPage(new ArrayList<>(), null, 0L);
+        }
+        BigDecimal lowest = BigDecimal.valueOf(minCents, 2);
+        BigDecimal highest = BigDecimal.valueOf(maxCents, 2);
+        List<ProductSummary> rows = cursor != null
+                ? productRepository.findPriceRangePage(lowest, highest, BigDecimal.valueOf(cursor.getKey(), 2),
+                        cursor.getId(), Limit.of(pageSize + 1))
+                : productRepository.findPriceRangePage(lowest, highest, lowest, Long.MIN_VALUE,
+                        Limit.of(pageSize + 1));
+        return ProductPage.of(stockBuffer.overlay(rows), pageSize,
+                        row -> new KeysetCursor(ProductPriceIndex.toCents(row.getPrice()), row.getId()).toString())
+                .withTotalCount(productRepository.countByPriceBetween(lowest, highest));
+    }
+
+    /**
+     * Products with stock left, counting buffered adjustments. The query
+     * fetches one extra row for each product whose buffered stock is going
+     * down, since it may drop out of the page, and products restocked only
+     * in the buffer are merged in by id.
+     */
+    @Transactional(readOnly = true)
+    public ProductPage findInStock(Long after, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        logger.debug("Finding products in stock after id {} (limit {})", after, pageSize);
+        int fetch = pageSize + 1 + stockBuffer.pendingDecrementCount();
+        List<ProductSummary> rows = productRepository.findByIdGreaterThanAndStockQuantityGreaterThanOrderByIdAsc(
+                cursor(after), 0, Limit.of(fetch), ProductSummary.class);
+        List<Long> restocked = stockBuffer.restockedIds(cursor(after));
+        if (restocked.isEmpty() && fetch == pageSize + 1) {
+            return ProductPage.of(stockBuffer.overlay(rows), pageSize);
+        }
+        TreeMap<Long, ProductSummary> merged = new TreeMap<>();
+        for (ProductSummary summary : rows) {
+            merged.put(summary.getId(), summary);
+        }
+        // Past the last row fetched, the next page's query will find them
+        long bound = rows.size() == fetch ? rows.get(rows.size() - 1).getId() : Long.MAX_VALUE;
+        List<Long> missing = new ArrayList<>();
+        for (Long id : restocked) {
+            if (id <= bound && !merged.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        for (Product product : getProductsInOrder(missing)) {
+            merged.put(product.getId(), ProductSummary.of(product));
+        }
+        List<ProductSummary> inStock = new ArrayList<>(merged.size());
+        for (ProductSummary summary : stockBuffer.overlay(new ArrayList<>(merged.values()))) {
+            if (summary.getStockQuantity() != null && summary.getStockQuantity() > 0) {
+                inStock.add(summary);
+            }
+        }
+        return ProductPage.of(inStock, pageSize);
     }
 
-    public List<Product> findByPriceRange(BigDecimal min, BigDecimal max) {
-        logger.info("Finding products with price between {} and {}", min, max);
-        return productRepository.findByPriceBetween(min, max);
+    /**
+     * Write every product to the stream as newline-delimited JSON. Rows are
+     * read over a server-side cursor and detached once written, so memory use
+     * does not grow with the table; the first row is flushed immediately.
+     *
+     * @return the number of products written
+     */
+    @Transactional(readOnly = true, timeoutString = "${product.export.timeout-seconds:600}")
+    public long exportProducts(OutputStream out) throws IOException {
+        logger.debug("Exporting all products as NDJSON");
+        try {
+            long count = productRepository.withCursorFetch(() -> {
+                try {
+                    return writeProducts(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("Exported {} products", count);
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    public List<Product> findInStock() {
-        logger.info("Finding products in stock");
-        return productRepository.findByStockQuantityGreaterThan(0);
+    private long writeProducts(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAllOrderById();
+             JsonGenerator generator = exportWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                exportWriter.writeValue(generator, stockBuffer.overlay(product));
+                generator.writeRaw('\n');
+                entityManager.detach(product);
+                if (++count == 1 || count % exportFlushRows == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return count;
     }
 
     @Transactional
     public Product createProduct(Product product) {
-        logger.info("Creating new product: {}", product.getName());
+        logger.debug("Creating new product: {}", product.getName());
+        // An id or version in the body would make save() merge into an existing row
+        product.setId(null);
+        product.setVersion(null);
         
         // Save to database first
         Product savedProduct = productRepository.save(product);
         logger.info("Product saved to database with ID: {}", savedProduct.getId());
+        productCache.put(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
         
-        // Then save to S3
-        s3Service.saveProductToS3(savedProduct);
-        logger.info("Product also saved to S3");
+        // Mirror to S3 asynchronously via the outbox
+        outboxRepository.save(ProductOutboxEvent.upsert(savedProduct.getId()));
         
         return savedProduct;
     }
 
-    @Transactional
+    /**
+     * Replace a product's fields. When the caller passes the version it read,
+     * the update only applies if the product is still at that version.
+     * Otherwise a concurrent write detected at flush is retried against the
+     * fresh row, as if the two writes had run one after the other.
+     */
     public Product updateProduct(Long id, Product productDetails) {
-        logger.info("Updating product with id: {}", id);
-        
+        logger.debug("Updating product with id: {}", id);
+        if (productDetails.getVersion() != null) {
+            return transactionTemplate.execute(status -> applyUpdate(id, productDetails));
+        }
+        return retryOnConflict(() -> transactionTemplate.execute(status -> applyUpdate(id, productDetails)));
+    }
+
+    private Product applyUpdate(Long id, Product productDetails) {
+        stockBuffer.discard(List.of(id));
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        if (productDetails.getVersion() != null && !productDetails.getVersion().equals(product.getVersion())) {
+            throw new OptimisticLockingFailureException("Product " + id + " is at version "
+                    + product.getVersion() + ", not " + productDetails.getVersion());
+        }
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -83,18 +436,56 @@ public class ProductService {
 
         // Update in database
         Product updatedProduct = productRepository.save(product);
-        logger.info("Product updated in database");
+        logger.info("Product {} updated in database", id);
+        productCache.put(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(updatedProduct));
         
-        // Update in S3
-        s3Service.saveProductToS3(updatedProduct);
-        logger.info("Product also updated in S3");
+        // Mirror to S3 asynchronously via the outbox
+        outboxRepository.save(ProductOutboxEvent.upsert(updatedProduct.getId()));
         
         return updatedProduct;
     }
 
+    /**
+     * Add delta to a product's stock, never going below zero and never
+     * losing a concurrent adjustment. With the stock buffer enabled the
+     * change is journaled and written to the database with the next flush;
+     * see StockBuffer. Otherwise it is applied with a single conditional
+     * UPDATE, the outbox row written first so the product row is locked only
+     * from the UPDATE to the commit, and lock timeouts and deadlocks are
+     * retried.
+     *
+     * @throws InsufficientStockException if the product has less than -delta in stock
+     */
+    public Product adjustStock(Long id, Integer delta) {
+        if (delta == null || delta == 0) {
+            throw new IllegalArgumentException("delta must be a non-zero integer");
+        }
+        logger.debug("Adjusting stock of product {} by {}", id, delta);
+        if (stockBuffer.isEnabled()) {
+            return stockBuffer.adjust(id, delta);
+        }
+        return retryOnConflict(() -> transactionTemplate.execute(status -> {
+            outboxRepository.save(ProductOutboxEvent.upsert(id));
+            if (productRepository.adjustStock(id, delta, Product.timestamp()) == 0) {
+                if (!productRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("Product not found with id: " + id);
+                }
+                throw new InsufficientStockException("Insufficient stock for product " + id
+                        + " to apply a change of " + delta);
+            }
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+            productCache.put(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+            return product;
+        }));
+    }
+
     @Transactional
     public void deleteProduct(Long id) {
-        logger.info("Deleting product with id: {}", id);
+        logger.debug("Deleting product with id: {}", id);
+        stockBuffer.discard(List.of(id));
         
         // Check if product exists
         Optional<Product> product = productRepository.findById(id);
@@ -104,10 +495,258 @@ public class ProductService {
         
         // Delete from database
         productRepository.deleteById(id);
-        logger.info("Product deleted from database");
+        logger.info("Product {} deleted from database", id);
+        productCache.evict(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         
-        // Delete from S3
-        s3Service.deleteProductFromS3(id);
-        logger.info("Product also deleted from S3");
+        // Remove from S3 asynchronously via the outbox
+        outboxRepository.save(ProductOutboxEvent.delete(id));
+    }
+
+    /**
+     * Products with the given ids in request order, skipping unknown ids.
+     * Served from the S3 mirror while the database is unavailable.
+     */
+    public List<Product> getProducts(List<Long> ids) {
+        checkBatchSize(ids.size());
+        logger.debug("Bulk fetching {} products", ids.size());
+        List<Product> products = new ArrayList<>();
+        for (Product product : getProductsInOrder(ids.stream().distinct().toList())) {
+            products.add(stockBuffer.overlay(product));
+        }
+        return products;
+    }
+
+    /**
+     * Create many products in one transaction. Invalid items are reported
+     * individually and skipped; the rest are inserted with a single JDBC
+     * batch and queued for S3 mirroring with a second one.
+     */
+    @Transactional
+    public List<BulkItemResult> createProducts(List<Product> products) {
+        checkBatchSize(products.size());
+        logger.debug("Bulk creating {} products", products.size());
+
+        BulkItemResult[] results = new BulkItemResult[products.size()];
+        List<Product> toInsert = new ArrayList<>(products.size());
+        List<Integer> positions = new ArrayList<>(products.size());
+        LocalDateTime now = Product.timestamp();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            String error = validate(product);
+            if (error != null) {
+                results[i] = BulkItemResult.failure(i, null, BulkItemResult.Status.INVALID, error);
+                continue;
+            }
+            product.setId(null);
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            toInsert.add(product);
+            positions.add(i);
+        }
+
+        productRepository.insertAll(toInsert);
+        List<ProductOutboxEvent> events = new ArrayList<>(toInsert.size());
+        for (int i = 0; i < toInsert.size(); i++) {
+            Product product = toInsert.get(i);
+            events.add(ProductOutboxEvent.upsert(product.getId()));
+            productCache.put(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+            results[positions.get(i)] = BulkItemResult.success(positions.get(i), product.getId(),
+                    BulkItemResult.Status.CREATED);
+        }
+        productRepository.insertOutboxEvents(events);
+        logger.info("Bulk created {} of {} products", toInsert.size(), products.size());
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Update many products in one transaction. Existing rows are loaded with
+     * a single IN query and written back as one Hibernate JDBC batch.
+     */
+    @Transactional
+    public List<BulkItemResult> updateProducts(List<Product> products) {
+        checkBatchSize(products.size());
+        logger.debug("Bulk updating {} products", products.size());
+
+        Set<Long> ids = new HashSet<>();
+        for (Product product : products) {
+            if (product.getId() != null) {
+                ids.add(product.getId());
+            }
+        }
+        stockBuffer.discard(ids);
+        Map<Long, Product> existing = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            existing.put(product.getId(), product);
+        }
+
+        BulkItemResult[] results = new BulkItemResult[products.size()];
+        Map<Long, Product> updated = new LinkedHashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product details = products.get(i);
+            String error = details.getId() == null ? "id is required" : validate(details);
+            if (error != null) {
+                results[i] = BulkItemResult.failure(i, details.getId(), BulkItemResult.Status.INVALID, error);
+                continue;
+            }
+            Product product = existing.get(details.getId());
+            if (product == null) {
+                results[i] = BulkItemResult.failure(i, details.getId(), BulkItemResult.Status.NOT_FOUND,
+                        "Product not found with id: " + details.getId());
+                continue;
+            }
+            product.setName(details.getName());
+            product.setDescription(details.getDescription());
+            product.setPrice(details.getPrice());
+            product.setStockQuantity(details.getStockQuantity());
+            updated.put(product.getId(), product);
+            results[i] = BulkItemResult.success(i, product.getId(), BulkItemResult.Status.UPDATED);
+        }
+
+        // Flushing runs @PreUpdate, so cached and published products carry the new updatedAt
+        productRepository.flush();
+        List<ProductOutboxEvent> events = new ArrayList<>(updated.size());
+        for (Product product : updated.values()) {
+            events.add(ProductOutboxEvent.upsert(product.getId()));
+            productCache.put(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+        productRepository.insertOutboxEvents(events);
+        logger.info("Bulk updated {} of {} products", updated.size(), products.size());
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Delete many products in one transaction with a single DELETE ... IN
+     * statement. Ids that do not exist are reported as NOT_FOUND.
+     */
+    @Transactional
+    public List<BulkItemResult> deleteProducts(List<Long> ids) {
+        checkBatchSize(ids.size());
+        logger.debug("Bulk deleting {} products", ids.size());
+        stockBuffer.discard(ids.stream().filter(id -> id != null).toList());
+
+        Set<Long> existing = new HashSet<>();
+        for (Product product : productRepository.findAllById(new HashSet<>(ids))) {
+            existing.add(product.getId());
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id != null && existing.contains(id)) {
+                results.add(BulkItemResult.success(i, id, BulkItemResult.Status.DELETED));
+            } else {
+                results.add(BulkItemResult.failure(i, id, BulkItemResult.Status.NOT_FOUND,
+                        "Product not found with id: " + id));
+            }
+        }
+
+        productRepository.deleteAllByIdInBatch(existing);
+        List<ProductOutboxEvent> events = new ArrayList<>(existing.size());
+        for (Long id : existing) {
+            events.add(ProductOutboxEvent.delete(id));
+            productCache.evict(id);
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+        }
+        productRepository.insertOutboxEvents(events);
+        logger.info("Bulk deleted {} of {} products", existing.size(), ids.size());
+
+        return results;
+    }
+
+    private static List<ProductSummary> summaries(List<Product> products) {
+        List<ProductSummary> summaries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            summaries.add(ProductSummary.of(product));
+        }
+        return summaries;
+    }
+
+    private Product readFromMirror(Long id) {
+        Product product = productCache.getIfPresent(id);
+        if (product != null) {
+            return product;
+        }
+        return mirrorReader.readAll(List.of(id)).values().stream()
+                .findFirst()
+                .orElseThrow(() -> mirrorReader.unavailable(id));
+    }
+
+    // Mirror documents are not put in the cache, which only holds database rows
+    private Map<Long, Product> readAllFromMirror(List<Long> ids) {
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = productCache.getIfPresent(id);
+            if (product != null) {
+                found.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(mirrorReader.readAll(missing));
+        }
+        return found;
+    }
+
+    /**
+     * Run a write transaction, retrying it when it loses an optimistic version
+     * check, a lock wait or a deadlock, up to max-attempts in total.
+     */
+    private <T> T retryOnConflict(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxWriteAttempts) {
+                    throw e;
+                }
+                logger.debug("Write conflict on attempt {}, retrying: {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Clamp a requested page size to [1, max-limit], using the default when
+     * the caller did not ask for one.
+     */
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultPageLimit;
+        }
+        return Math.max(1, Math.min(limit, maxPageLimit));
+    }
+
+    private static Long cursor(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Batch of " + size + " items exceeds the maximum of " + maxBatchSize);
+        }
+    }
+
+    /**
+     * Check the columns the database would reject, so one bad item is
+     * reported on its own instead of failing the whole batch.
+     */
+    private static String validate(Product product) {
+        if (product == null) {
+            return "product is required";
+        }
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "name is required";
+        }
+        if (product.getPrice() == null) {
+            return "price is required";
+        }
+        return null;
     }
 }
@@ -0,0 +1,63 @@
+package com.example.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency of S3 calls, recorded as the s3.requests timer tagged with the
+ * operation (put, get, delete), the client (sync or async) and the outcome.
+ * Percentiles and histogram buckets are configured under
+ * management.metrics.distribution.
+ */
+@Component
+public class S3RequestMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public S3RequestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(operation, "sync", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> CompletableFuture<T> recordAsync(String operation, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(operation, "async", "error"));
+            throw e;
+        }
+        return response.whenComplete((result, error) ->
+                sample.stop(timer(operation, "async", error == null ? "success" : "error")));
+    }
+
+    private Timer timer(String operation, String client, String outcome) {
+        return timers.computeIfAbsent(operation + '/' + client + '/' + outcome, key -> Timer.builder("s3.requests")
+                .description("Latency of S3 requests")
+                .tag("operation", operation)
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
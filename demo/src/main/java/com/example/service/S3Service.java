@@ -1,20 +1,17 @@
 package com.example.service;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.example.model.Product;
-
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
@@ -24,107 +21,74 @@ public class S3Service {
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
     
     private final S3Client s3Client;
+    private final S3RequestMetrics metrics;
     private final String bucketName;
 
-    public S3Service(
-            @Value("${data.bucket.name}") String bucketName,
-            @Value("${aws.region:us-east-1}") String regionName) {
-        
-        Region region = Region.of(regionName);
-        logger.info("Initializing S3 client with region: {}", region.id());
-        
-        this.s3Client = S3Client.builder()
-                .region(region)
-                .build();
+    public S3Service(S3Client s3Client, S3RequestMetrics metrics,
+            @Value("${data.bucket.name}") String bucketName) {
+        this.s3Client = s3Client;
+        this.metrics = metrics;
         this.bucketName = bucketName;
         logger.info("S3Service initialized with bucket: {}", bucketName);
     }
 
-    public void saveProductToS3(Product product) {
-        try {
-            logger.info("Saving product to S3: {}", product.getId());
-            
-            // Create JSON content
-            String content = String.format(
-                "{\n" +
-                "  \"id\": %d,\n" +
-                "  \"name\": \"%s\",\n" +
-                "  \"description\": \"%s\",\n" +
-                "  \"price\": %s,\n" +
-                "  \"stockQuantity\": %d\n" +
-                "}",
-                product.getId(),
-                product.getName(),
-                product.getDescription() != null ? product.getDescription() : "",
-                product.getPrice(),
-                product.getStockQuantity() != null ? product.getStockQuantity() : 0
-            );
-            
-            // Upload to S3
-            String key = "products/" + product.getId() + ".json";
-            
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType("application/json")
-                .build();
-                
-            s3Client.putObject(putObjectRequest, 
-                RequestBody.fromString(content, StandardCharsets.UTF_8));
-            
-            logger.info("Product {} saved to S3 at {}/{}", product.getId(), bucketName, key);
-        } catch (Exception e) {
-            logger.error("Error saving product to S3", e);
-            throw new RuntimeException("Failed to save product to S3", e);
-        }
+    /**
+     * Upload a local file, streamed from disk rather than read into memory.
+     */
+    public void putFile(String key, Path file, String contentType) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentType(contentType)
+            .build();
+        metrics.record("put", () -> s3Client.putObject(putObjectRequest, RequestBody.fromFile(file)));
     }
-    
-    public String getProductFromS3(Long productId) {
+
+    public void putText(String key, String text) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentType("text/plain; charset=utf-8")
+            .build();
+        metrics.record("put", () -> s3Client.putObject(putObjectRequest, RequestBody.fromString(text)));
+    }
+
+    /**
+     * Return the object as text, or null if there is no such key. Any other
+     * failure is thrown.
+     */
+    public String getText(String key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
         try {
-            String key = "products/" + productId + ".json";
-            
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-                
-            return s3Client.getObjectAsBytes(getObjectRequest).asUtf8String();
-        } catch (Exception e) {
-            logger.error("Error retrieving product from S3", e);
+            return metrics.record("get", () -> s3Client.getObjectAsBytes(getObjectRequest)).asUtf8String();
+        } catch (NoSuchKeyException e) {
             return null;
         }
     }
-    
-    public boolean deleteProductFromS3(Long productId) {
-        try {
-            logger.info("Deleting product from S3: {}", productId);
-            String key = "products/" + productId + ".json";
-            
-            // Check if object exists
-            try {
-                HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-                    
-                s3Client.headObject(headObjectRequest);
-                
-                // If we get here, the object exists, so delete it
-                DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-                    
-                s3Client.deleteObject(deleteObjectRequest);
-                logger.info("Product {} deleted from S3", productId);
-                return true;
-            } catch (NoSuchKeyException e) {
-                logger.warn("Product {} not found in S3", productId);
-                return false;
-            }
-        } catch (Exception e) {
-            logger.error("Error deleting product from S3", e);
-            throw new RuntimeException("Failed to delete product from S3", e);
-        }
+
+    /**
+     * Stream the object to a file, which must not exist yet.
+     */
+    public void downloadFile(String key, Path file) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        metrics.record("get", () -> s3Client.getObject(getObjectRequest, ResponseTransformer.toFile(file)));
+    }
+
+    public void deleteObject(String key) {
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        metrics.record("delete", () -> s3Client.deleteObject(deleteObjectRequest));
+    }
+
+    public static String productKey(Long productId) {
+        return "products/" + productId + ".json";
     }
 }
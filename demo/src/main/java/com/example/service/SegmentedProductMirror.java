@@ -0,0 +1,585 @@
+package com.example.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * S3 mirror that batches product documents into shared segment objects
+ * (product.mirror.layout=segmented).
+ *
+ * <p>Writes are coalesced per product for flush-interval-ms. Each flush then
+ * writes one segment object, mirror/segments/{sequence}.seg, holding one
+ * slice per id shard (ids / shard-size) that changed, followed by one
+ * mirror/manifest.json listing every shard's slices, oldest first. A flush
+ * costs two PUTs however many products it carries. A slice holds the
+ * documents of its shard written in that flush, sorted by id, with
+ * tombstones for deletes.
+ *
+ * <p>A lookup reads the manifest, fetches the shard's slices with ranged
+ * GETs, and takes the newest entry for the id. Slices are immutable, so
+ * they are cached by location. Once a shard has max-slices slices, the next
+ * flush touching it compacts them: it writes a single slice with the
+ * latest document per product and no tombstones. Segments no longer
+ * referenced are deleted retention-ms after the manifest stopped naming
+ * them, so readers holding an older manifest can finish.
+ *
+ * <p>The manifest is rewritten without conditional writes, so only one
+ * instance may run the outbox dispatcher with this layout. Futures complete
+ * once the manifest naming their segment is written. Unacknowledged outbox
+ * events are redelivered, so a failed or lost flush is retried.
+ */
+@Component
+@ConditionalOnProperty(name = "product.mirror.layout", havingValue = "segmented")
+public class SegmentedProductMirror implements ProductMirror, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedProductMirror.class);
+
+    static final String MANIFEST_KEY = "mirror/manifest.json";
+    private static final String SEGMENT_PREFIX = "mirror/segments/";
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_MAGIC = 0x50534547; // "PSEG"
+    private static final int TOMBSTONE_LENGTH = -1;
+    private static final byte[] TOMBSTONE = new byte[0];
+
+    private final S3AsyncClient s3AsyncClient;
+    private final ProductJsonCodec jsonCodec;
+    private final S3RequestMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final String bucketName;
+    private final int shardSize;
+    private final int maxSlices;
+    private final int maxPending;
+    private final long manifestTtlNanos;
+    private final long retentionMs;
+    private final long s3TimeoutMs;
+    private final AsyncCache<Slice, Map<Long, byte[]>> slices;
+
+    // Guarded by this
+    private Map<Long, Pending> pending = new HashMap<>();
+    private int flushing;
+    private long completed;
+    private long failed;
+    private long coalesced;
+    private long rejected;
+
+    // Written only by flush(), which the scheduler never runs concurrently
+    private final List<String> unreferenced = new ArrayList<>();
+    private boolean owned;
+    private long segmentsWritten;
+    private long compactions;
+
+    private volatile Manifest manifest;
+    private volatile long manifestReadAt;
+
+    public SegmentedProductMirror(S3AsyncClient s3AsyncClient,
+            ProductJsonCodec jsonCodec,
+            S3RequestMetrics metrics,
+            ObjectMapper objectMapper,
+            @Value("${data.bucket.name}") String bucketName,
+            @Value("${product.mirror.segment.shard-size:1000}") int shardSize,
+            @Value("${product.mirror.segment.max-slices:8}") int maxSlices,
+            @Value("${product.mirror.max-pending:10000}") int maxPending,
+            @Value("${product.mirror.segment.manifest-ttl-ms:5000}") long manifestTtlMs,
+            @Value("${product.mirror.segment.retention-ms:300000}") long retentionMs,
+            @Value("${product.mirror.segment.s3-timeout-ms:30000}") long s3TimeoutMs,
+            @Value("${product.mirror.segment.cache-bytes:67108864}") long cacheBytes) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.jsonCodec = jsonCodec;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.bucketName = bucketName;
+        this.shardSize = shardSize;
+        this.maxSlices = Math.max(2, maxSlices);
+        this.maxPending = maxPending;
+        this.manifestTtlNanos = TimeUnit.MILLISECONDS.toNanos(manifestTtlMs);
+        this.retentionMs = retentionMs;
+        this.s3TimeoutMs = s3TimeoutMs;
+        this.slices = Caffeine.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((Slice slice, Map<Long, byte[]> documents) -> slice.length())
+                .buildAsync();
+        logger.info("SegmentedProductMirror initialized with {} ids per shard and up to {} slices per shard",
+                shardSize, this.maxSlices);
+    }
+
+    @Override
+    public CompletableFuture<Void> upsert(Product product) {
+        // Copied on the caller's thread: the codec buffer is reused per thread
+        ByteBuffer encoded = jsonCodec.encode(product);
+        byte[] document = new byte[encoded.remaining()];
+        encoded.get(document);
+        return submit(product.getId(), document);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(Long productId) {
+        return submit(productId, TOMBSTONE);
+    }
+
+    @Override
+    public synchronized int remainingCapacity() {
+        return Math.max(0, maxPending - pending.size() - flushing);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetch(Long productId) {
+        return currentManifest(false)
+                .thenCompose(current -> lookup(current, productId))
+                .exceptionallyCompose(error -> {
+                    // A slice compacted away since the manifest was read: read it again once
+                    if (isNoSuchKey(error)) {
+                        return currentManifest(true).thenCompose(current -> lookup(current, productId));
+                    }
+                    return CompletableFuture.failedFuture(error);
+                });
+    }
+
+    /**
+     * Write everything submitted since the last flush as one segment and
+     * publish the manifest that references it.
+     */
+    @Scheduled(fixedDelayString = "${product.mirror.segment.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Long, Pending> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+            flushing = batch.size();
+        }
+        long start = System.nanoTime();
+        String segment = null;
+        boolean segmentWritten = false;
+        try {
+            Manifest current = writerManifest();
+            long sequence = current.sequence() + 1;
+            segment = SEGMENT_PREFIX + String.format("%016d", sequence) + ".seg";
+
+            Map<Long, TreeMap<Long, byte[]>> changes = new TreeMap<>();
+            batch.forEach((id, entry) ->
+                    changes.computeIfAbsent(id / current.shardSize(), shard -> new TreeMap<>()).put(id, entry.document));
+
+            SegmentWriter writer = new SegmentWriter(segment);
+            Map<Long, List<Slice>> shards = new TreeMap<>(current.shards());
+            Map<Slice, Map<Long, byte[]>> written = new HashMap<>();
+            int compacted = 0;
+            for (Map.Entry<Long, TreeMap<Long, byte[]>> change : changes.entrySet()) {
+                List<Slice> existing = shards.getOrDefault(change.getKey(), List.of());
+                Map<Long, byte[]> content = change.getValue();
+                List<Slice> updated = new ArrayList<>(existing);
+                if (existing.size() + 1 > maxSlices) {
+                    TreeMap<Long, byte[]> merged = new TreeMap<>();
+                    for (Slice slice : existing) {
+                        merged.putAll(slice(slice).get(s3TimeoutMs, TimeUnit.MILLISECONDS));
+                    }
+                    merged.putAll(content);
+                    merged.values().removeIf(document -> document == TOMBSTONE);
+                    content = merged;
+                    updated.clear();
+                    compacted++;
+                }
+                if (content.isEmpty()) {
+                    shards.remove(change.getKey());
+                    continue;
+                }
+                Slice slice = writer.append(content);
+                updated.add(slice);
+                shards.put(change.getKey(), List.copyOf(updated));
+                written.put(slice, content);
+            }
+
+            long now = System.currentTimeMillis();
+            Set<String> referenced = referencedSegments(shards);
+            List<Retired> retired = new ArrayList<>();
+            List<String> expired = new ArrayList<>();
+            for (Retired entry : current.retired()) {
+                if (now - entry.retiredAt() >= retentionMs) {
+                    expired.add(entry.segment());
+                } else {
+                    retired.add(entry);
+                }
+            }
+            for (String name : referencedSegments(current.shards())) {
+                if (!referenced.contains(name)) {
+                    retired.add(new Retired(name, now));
+                }
+            }
+            unreferenced.forEach(name -> retired.add(new Retired(name, now)));
+
+            if (!written.isEmpty()) {
+                byte[] bytes = writer.toByteArray();
+                put(segment, bytes, "application/octet-stream");
+                segmentWritten = true;
+            }
+            Manifest next = new Manifest(FORMAT_VERSION, sequence, current.shardSize(), shards, retired);
+            put(MANIFEST_KEY, objectMapper.writeValueAsBytes(next), "application/json");
+            manifest = next;
+            manifestReadAt = System.nanoTime();
+            unreferenced.clear();
+            if (segmentWritten) {
+                segmentsWritten++;
+            }
+            compactions += compacted;
+            written.forEach((slice, content) -> slices.put(slice, CompletableFuture.completedFuture(content)));
+            expired.forEach(this::deleteSegment);
+
+            complete(batch, null);
+            logger.debug("Flushed {} products to {} in {} ms ({} shards, {} compacted)", batch.size(), segment,
+                    (System.nanoTime() - start) / 1_000_000, changes.size(), compacted);
+        } catch (Exception e) {
+            if (segmentWritten) {
+                // Never referenced; retired with the next manifest
+                unreferenced.add(segment);
+            }
+            logger.warn("Flushing {} products to the segmented S3 mirror failed: {}", batch.size(), e.toString());
+            complete(batch, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        } finally {
+            synchronized (this) {
+                flushing = 0;
+            }
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStats() {
+        Manifest current = manifest;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("layout", "segmented");
+        result.put("pending", pending.size() + flushing);
+        result.put("maxPending", maxPending);
+        result.put("completed", completed);
+        result.put("failed", failed);
+        result.put("coalesced", coalesced);
+        result.put("rejected", rejected);
+        result.put("sequence", current != null ? current.sequence() : null);
+        result.put("shards", current != null ? current.shards().size() : null);
+        result.put("slices", current != null ? sliceCount(current) : null);
+        result.put("segmentsWritten", segmentsWritten);
+        result.put("compactions", compactions);
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.mirror.pending", this, mirror -> mirror.stat("pending"))
+                .description("S3 mirror operations accepted and not yet completed")
+                .register(registry);
+        for (String outcome : List.of("completed", "failed", "coalesced", "rejected")) {
+            FunctionCounter.builder("product.mirror.operations", this, mirror -> mirror.stat(outcome))
+                    .description("S3 mirror operations by outcome; rejected and throttled signal backpressure")
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+        FunctionCounter.builder("product.mirror.segment.writes", this, mirror -> mirror.stat("segmentsWritten"))
+                .description("Segment objects written to the S3 mirror")
+                .register(registry);
+        FunctionCounter.builder("product.mirror.segment.compactions", this, mirror -> mirror.stat("compactions"))
+                .description("Shards whose slices were merged into one")
+                .register(registry);
+        Gauge.builder("product.mirror.segment.slices", this, mirror -> mirror.stat("slices"))
+                .description("Slices referenced by the current manifest")
+                .register(registry);
+    }
+
+    private synchronized double stat(String name) {
+        Manifest current = manifest;
+        return switch (name) {
+            case "pending" -> pending.size() + flushing;
+            case "completed" -> completed;
+            case "failed" -> failed;
+            case "coalesced" -> coalesced;
+            case "rejected" -> rejected;
+            case "segmentsWritten" -> segmentsWritten;
+            case "compactions" -> compactions;
+            case "slices" -> current != null ? sliceCount(current) : 0;
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    private CompletableFuture<Void> submit(Long productId, byte[] document) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        synchronized (this) {
+            Pending entry = pending.get(productId);
+            if (entry != null) {
+                entry.document = document;
+                entry.results.add(result);
+                coalesced++;
+                return result;
+            }
+            if (pending.size() + flushing >= maxPending) {
+                rejected++;
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Segmented S3 mirror is full, product " + productId + " not submitted"));
+            }
+            pending.put(productId, new Pending(document, result));
+        }
+        return result;
+    }
+
+    private void complete(Map<Long, Pending> batch, Throwable error) {
+        synchronized (this) {
+            if (error == null) {
+                completed += batch.size();
+            } else {
+                failed += batch.size();
+            }
+        }
+        for (Pending entry : batch.values()) {
+            for (CompletableFuture<Void> result : entry.results) {
+                if (error == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<byte[]> lookup(Manifest current, Long productId) {
+        List<Slice> shard = current.shards().get(productId / current.shardSize());
+        if (shard == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Map<Long, byte[]>>> reads = shard.stream().map(this::slice).toList();
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            for (int i = reads.size() - 1; i >= 0; i--) {
+                byte[] document = reads.get(i).join().get(productId);
+                if (document != null) {
+                    return document == TOMBSTONE ? null : document;
+                }
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<Map<Long, byte[]>> slice(Slice slice) {
+        return slices.get(slice, (key, executor) -> {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key.segment())
+                    .range("bytes=" + key.offset() + "-" + (key.offset() + key.length() - 1))
+                    .build();
+            return metrics.recordAsync("get", () -> s3AsyncClient.getObject(request, AsyncResponseTransformer.toBytes()))
+                    .thenApply(bytes -> decodeSlice(bytes.asByteBuffer()));
+        });
+    }
+
+    /**
+     * The manifest to read from. The writer's own copy is always current;
+     * other instances re-read it from S3 once it is manifest-ttl-ms old.
+     */
+    private CompletableFuture<Manifest> currentManifest(boolean refresh) {
+        Manifest current = manifest;
+        if (current != null && !refresh && (owned || System.nanoTime() - manifestReadAt < manifestTtlNanos)) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return readManifest().thenApply(read -> {
+            if (!owned) {
+                manifest = read;
+                manifestReadAt = System.nanoTime();
+            }
+            return read;
+        });
+    }
+
+    private Manifest writerManifest() throws Exception {
+        if (!owned) {
+            manifest = readManifest().get(s3TimeoutMs, TimeUnit.MILLISECONDS);
+            manifestReadAt = System.nanoTime();
+            owned = true;
+            logger.info("Segmented S3 mirror continuing from manifest sequence {} with {} shards",
+                    manifest.sequence(), manifest.shards().size());
+        }
+        return manifest;
+    }
+
+    private CompletableFuture<Manifest> readManifest() {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(MANIFEST_KEY)
+                .build();
+        return metrics.recordAsync("get", () -> s3AsyncClient.getObject(request, AsyncResponseTransformer.toBytes()))
+                .handle((bytes, error) -> {
+                    if (error == null) {
+                        try {
+                            Manifest read = objectMapper.readValue(bytes.asByteArrayUnsafe(), Manifest.class);
+                            if (read.formatVersion() != FORMAT_VERSION) {
+                                throw new IllegalStateException(
+                                        "Unsupported mirror manifest format " + read.formatVersion());
+                            }
+                            return read;
+                        } catch (java.io.IOException e) {
+                            throw new CompletionException(e);
+                        }
+                    }
+                    if (isNoSuchKey(error)) {
+                        return new Manifest(FORMAT_VERSION, 0, shardSize, Map.of(), List.of());
+                    }
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                });
+    }
+
+    private void put(String key, byte[] bytes, String contentType) throws Exception {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        metrics.recordAsync("put", () -> s3AsyncClient.putObject(request, AsyncRequestBody.fromBytes(bytes)))
+                .get(s3TimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void deleteSegment(String segment) {
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(segment)
+                .build();
+        metrics.recordAsync("delete", () -> s3AsyncClient.deleteObject(request)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.warn("Could not delete retired mirror segment {}: {}", segment, error.toString());
+            }
+        });
+    }
+
+    private static Set<String> referencedSegments(Map<Long, List<Slice>> shards) {
+        Set<String> names = new HashSet<>();
+        shards.values().forEach(list -> list.forEach(slice -> names.add(slice.segment())));
+        return names;
+    }
+
+    private static int sliceCount(Manifest current) {
+        return current.shards().values().stream().mapToInt(List::size).sum();
+    }
+
+    private static boolean isNoSuchKey(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoSuchKeyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // count, then (id, length, document) per entry in id order; length -1 marks a delete
+    private static Map<Long, byte[]> decodeSlice(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<Long, byte[]> documents = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            long id = buffer.getLong();
+            int length = buffer.getInt();
+            if (length == TOMBSTONE_LENGTH) {
+                documents.put(id, TOMBSTONE);
+            } else {
+                byte[] document = new byte[length];
+                buffer.get(document);
+                documents.put(id, document);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Builds one segment object: a header, then slices appended in turn.
+     */
+    private static final class SegmentWriter {
+
+        private final String segment;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final ByteBuffer scratch = ByteBuffer.allocate(12);
+
+        private SegmentWriter(String segment) {
+            this.segment = segment;
+            writeInt(SEGMENT_MAGIC);
+            writeInt(FORMAT_VERSION);
+        }
+
+        private Slice append(Map<Long, byte[]> documents) {
+            int offset = out.size();
+            writeInt(documents.size());
+            for (Map.Entry<Long, byte[]> entry : documents.entrySet()) {
+                byte[] document = entry.getValue();
+                scratch.clear();
+                scratch.putLong(entry.getKey()).putInt(document == TOMBSTONE ? TOMBSTONE_LENGTH : document.length);
+                out.write(scratch.array(), 0, 12);
+                if (document != TOMBSTONE) {
+                    out.writeBytes(document);
+                }
+            }
+            return new Slice(segment, offset, out.size() - offset);
+        }
+
+        private void writeInt(int value) {
+            scratch.clear();
+            scratch.putInt(value);
+            out.write(scratch.array(), 0, 4);
+        }
+
+        private byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Pending {
+        private byte[] document;
+        private final List<CompletableFuture<Void>> results = new ArrayList<>(1);
+
+        private Pending(byte[] document, CompletableFuture<Void> result) {
+            this.document = document;
+            this.results.add(result);
+        }
+    }
+
+    /**
+     * The mirror's index: every shard's slices, oldest first, and the
+     * segments waiting to be deleted.
+     */
+    record Manifest(int formatVersion, long sequence, int shardSize, Map<Long, List<Slice>> shards,
+            List<Retired> retired) {
+    }
+
+    record Slice(String segment, long offset, int length) {
+    }
+
+    record Retired(String segment, long retiredAt) {
+    }
+}
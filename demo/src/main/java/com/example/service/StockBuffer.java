@@ -0,0 +1,638 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.exception.InsufficientStockException;
+import com.example.exception.ResourceNotFoundException;
+import com.example.model.Product;
+import com.example.model.ProductOutboxEvent;
+import com.example.model.ProductSummary;
+import com.example.repository.ProductRepository;
+import com.example.repository.StockCheckpointRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Write-combining buffer for stock adjustments on hot products.
+ *
+ * Each product being adjusted has a cell holding its stock as last read from
+ * the database (base) and the sum of accepted deltas not yet written back
+ * (pending). An adjustment is accepted only if base + pending stays at or
+ * above zero. It is appended to a local StockJournal and acknowledged once
+ * the journal has forced it to disk; the database is not touched. Every
+ * flush-interval-ms the pending sums are written to products.stock_quantity
+ * in one JDBC batch, together with a per-product journal checkpoint, so a
+ * thousand adjustments to one product cost a single UPDATE. On startup,
+ * journal records past their product's checkpoint are applied before the
+ * application takes traffic.
+ *
+ * Reads see buffered values through overlay(). Writes that set stock to an
+ * absolute value call discard() in their transaction: buffered deltas are
+ * superseded by the new value, and the product's cell is blocked until the
+ * transaction completes.
+ *
+ * The reservation check is only exact while this instance is the only one
+ * adjusting stock; with several instances each checks against its own view
+ * of the stock, which can lag the others by one flush interval.
+ */
+@Component
+public class StockBuffer implements SmartInitializingSingleton, SmartLifecycle, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockBuffer.class);
+
+    private final ProductRepository productRepository;
+    private final StockCheckpointRepository checkpointRepository;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final StockJournal journal;
+
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+    // Held by a flush from journal rotation to commit, and by discard() until its transaction completes
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder adjustments = new LongAdder();
+    private final LongAdder flushedProducts = new LongAdder();
+    private volatile Timer flushTimer;
+    private volatile boolean running;
+
+    public StockBuffer(ProductRepository productRepository,
+            StockCheckpointRepository checkpointRepository,
+            ProductCache productCache,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.stock.buffer.enabled:false}") boolean enabled,
+            @Value("${product.stock.buffer.node-id:local}") String nodeId,
+            @Value("${product.stock.buffer.journal-dir:${java.io.tmpdir}/product-stock-journal}") String journalDir,
+            @Value("${product.stock.buffer.journal-sync:true}") boolean journalSync) {
+        this.productRepository = productRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        Path directory = Paths.get(journalDir);
+        this.journal = new StockJournal(directory, journalSync);
+        if (enabled) {
+            logger.info("Stock buffer enabled for node {} with journal in {}", nodeId, directory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Apply journal records the database has not seen yet, then open the
+     * journal for new adjustments. Runs once every bean exists and before the
+     * web server starts.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Path> segments = journal.segments();
+            List<StockJournal.Entry> entries = StockJournal.read(segments);
+            Map<Long, Long> checkpoints = checkpointRepository.findByNode(nodeId);
+            long maxSeq = 0;
+            for (long seq : checkpoints.values()) {
+                maxSeq = Math.max(maxSeq, seq);
+            }
+            Map<Long, Long> deltas = new HashMap<>();
+            Map<Long, Long> lastSeqs = new HashMap<>();
+            int replayed = 0;
+            for (StockJournal.Entry entry : entries) {
+                maxSeq = Math.max(maxSeq, entry.seq());
+                if (entry.seq() > checkpoints.getOrDefault(entry.productId(), 0L)) {
+                    deltas.merge(entry.productId(), (long) entry.delta(), Long::sum);
+                    lastSeqs.put(entry.productId(), entry.seq());
+                    replayed++;
+                }
+            }
+            if (!lastSeqs.isEmpty()) {
+                deltas.values().removeIf(delta -> delta == 0);
+                transactionTemplate.executeWithoutResult(status -> writeBack(deltas, lastSeqs));
+                logger.info("Recovered {} journaled stock adjustments for {} products", replayed, lastSeqs.size());
+            }
+            journal.delete(segments);
+            journal.start(maxSeq + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the stock journal", e);
+        }
+    }
+
+    /**
+     * Add delta to a product's stock, returning the product with its
+     * buffered stock once the change is durable in the journal.
+     *
+     * @throws InsufficientStockException if the stock would go below zero
+     */
+    public Product adjust(Long id, int delta) {
+        long seq;
+        Base base = null;
+        Cell toLoad = null;
+        long toLoadGeneration = 0;
+        while (true) {
+            if (toLoad != null) {
+                // Read without holding the cell lock, which discard() keeps for a whole transaction
+                base = new Base(toLoad, toLoadGeneration, read(id));
+                toLoad = null;
+            }
+            Cell cell = cells.computeIfAbsent(id, Cell::new);
+            cell.lock.lock();
+            try {
+                if (cell.retired) {
+                    continue;
+                }
+                if (!cell.loaded) {
+                    if (base == null || base.cell != cell || base.generation != cell.generation) {
+                        toLoad = cell;
+                        toLoadGeneration = cell.generation;
+                        continue;
+                    }
+                    load(cell, base.row);
+                }
+                if (cell.available() + delta < 0) {
+                    throw new InsufficientStockException("Insufficient stock for product " + id
+                            + " to apply a change of " + delta);
+                }
+                seq = journal.append(id, delta);
+                cell.pending += delta;
+                cell.lastSeq = seq;
+                cell.publish();
+            } finally {
+                cell.lock.unlock();
+            }
+            break;
+        }
+        journal.awaitDurable(seq);
+        adjustments.increment();
+        return overlay(productCache.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * The product with its buffered stock, or the product itself when no
+     * adjustment to it is buffered. Never changes the given instance.
+     */
+    public Product overlay(Product product) {
+        View view = product != null ? view(product.getId()) : null;
+        // The cell has seen a newer row than the caller's copy when a flush has just written it
+        if (view == null || (view.isCurrent(product.getVersion()) && view.unflushed == 0)) {
+            return product;
+        }
+        boolean current = view.isCurrent(product.getVersion());
+        Product copy = new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), view.stock(current, product.getStockQuantity()), product.getCreatedAt(),
+                current ? product.getUpdatedAt() : view.baseUpdatedAt);
+        copy.setVersion(current ? product.getVersion() : view.baseVersion);
+        return copy;
+    }
+
+    /**
+     * As overlay(Product), for a listing row.
+     */
+    public ProductSummary overlay(ProductSummary summary) {
+        View view = view(summary.getId());
+        if (view == null || (view.isCurrent(summary.getVersion()) && view.unflushed == 0)) {
+            return summary;
+        }
+        boolean current = view.isCurrent(summary.getVersion());
+        return new ProductSummary(summary.getId(), summary.getName(), summary.getPrice(),
+                view.stock(current, summary.getStockQuantity()),
+                current ? summary.getUpdatedAt() : view.baseUpdatedAt,
+                current ? summary.getVersion() : view.baseVersion);
+    }
+
+    public List<ProductSummary> overlay(List<ProductSummary> summaries) {
+        if (cells.isEmpty()) {
+            return summaries;
+        }
+        List<ProductSummary> overlaid = new ArrayList<>(summaries.size());
+        for (ProductSummary summary : summaries) {
+            overlaid.add(overlay(summary));
+        }
+        return overlaid;
+    }
+
+    /**
+     * Whether reads of this product need overlay().
+     */
+    public boolean isBuffered(Long id) {
+        Cell cell = cells.get(id);
+        return cell != null && cell.view != null;
+    }
+
+    /**
+     * Products after the given id with stock only in the buffer: zero or less
+     * in the database, positive once buffered deltas are added.
+     */
+    public List<Long> restockedIds(long after) {
+        List<Long> ids = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            View view = cell.view;
+            if (view != null && cell.productId > after && view.base <= 0 && view.base + view.unflushed > 0) {
+                ids.add(cell.productId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Number of products whose buffered deltas are negative, i.e. that a
+     * database query on stock may count as in stock when they are not.
+     */
+    public int pendingDecrementCount() {
+        int count = 0;
+        for (Cell cell : cells.values()) {
+            View view = cell.view;
+            if (view != null && view.unflushed < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sequence number of the last buffered adjustment; changes whenever any
+     * buffered stock does.
+     */
+    public long lastSeq() {
+        return enabled ? journal.lastSeq() : 0;
+    }
+
+    /**
+     * Drop buffered deltas for products whose stock the current transaction
+     * is about to set or delete outright. Their cells stay locked, so no
+     * adjustment can slip in before the write, until the transaction
+     * completes; on commit they reload from the database at the next
+     * adjustment, on rollback the deltas are restored.
+     */
+    public void discard(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("StockBuffer.discard must run in a transaction");
+        }
+        List<Cell> locked = new ArrayList<>();
+        Map<Long, Long> checkpoints = new HashMap<>();
+        long[] discarded;
+        flushLock.lock();
+        try {
+            for (Long id : new TreeSet<>(ids)) {
+                Cell cell = cells.get(id);
+                if (cell == null) {
+                    continue;
+                }
+                cell.lock.lock();
+                locked.add(cell);
+                if (cell.lastSeq > cell.checkpointSeq) {
+                    checkpoints.put(id, cell.lastSeq);
+                }
+            }
+            discarded = new long[locked.size()];
+            for (int i = 0; i < locked.size(); i++) {
+                discarded[i] = locked.get(i).pending;
+                locked.get(i).pending = 0;
+            }
+            checkpointRepository.saveAll(nodeId, checkpoints);
+        } catch (RuntimeException e) {
+            unlock(locked);
+            flushLock.unlock();
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = 0; i < locked.size(); i++) {
+                    Cell cell = locked.get(i);
+                    if (status == STATUS_COMMITTED) {
+                        if (checkpoints.containsKey(cell.productId)) {
+                            cell.checkpointSeq = checkpoints.get(cell.productId);
+                        }
+                        cell.loaded = false;
+                        cell.generation++;
+                        cell.view = null;
+                    } else {
+                        cell.pending += discarded[i];
+                        cell.publish();
+                    }
+                }
+                unlock(locked);
+                flushLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Write buffered deltas to the database. Cells keep accepting
+     * adjustments meanwhile; the deltas being written are counted as
+     * in flight until the transaction commits, and restored if it fails.
+     */
+    @Scheduled(fixedDelayString = "${product.stock.buffer.flush-interval-ms:50}")
+    public void flush() {
+        if (!enabled || cells.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        flushLock.lock();
+        try {
+            List<Path> closedSegments = journal.rotate();
+            // Every record in the closed segments is now reflected in its cell
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (Cell cell : cells.values()) {
+                cell.lock.lock();
+                try {
+                    if (cell.retired || cell.lastSeq <= cell.checkpointSeq) {
+                        continue;
+                    }
+                    snapshots.add(new Snapshot(cell, cell.pending, cell.lastSeq));
+                    cell.inFlight = cell.pending;
+                    cell.pending = 0;
+                } finally {
+                    cell.lock.unlock();
+                }
+            }
+            if (!snapshots.isEmpty() && !writeSnapshots(snapshots)) {
+                return;
+            }
+            journal.delete(closedSegments);
+            removeIdleCells();
+        } catch (IOException e) {
+            logger.error("Could not rotate the stock journal: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+            Timer timer = flushTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, java.util.concurrent.TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Write everything buffered and close the journal once the web server has
+     * stopped taking requests, while the beans a flush needs are still alive.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (!enabled) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stopped after the web server (DEFAULT_PHASE - 2048)
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.stock.buffer.products", cells, Map::size)
+                .description("Products with a stock buffer cell")
+                .register(registry);
+        FunctionCounter.builder("product.stock.buffer.adjustments", adjustments, LongAdder::sum)
+                .description("Stock adjustments accepted by the buffer")
+                .register(registry);
+        FunctionCounter.builder("product.stock.buffer.flushed", flushedProducts, LongAdder::sum)
+                .description("Per-product stock updates written to the database")
+                .register(registry);
+        flushTimer = Timer.builder("product.stock.buffer.flush")
+                .description("Time to write buffered stock deltas to the database")
+                .register(registry);
+    }
+
+    private boolean writeSnapshots(List<Snapshot> snapshots) {
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Long, Long> lastSeqs = new HashMap<>();
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot.delta != 0) {
+                deltas.put(snapshot.cell.productId, snapshot.delta);
+            }
+            lastSeqs.put(snapshot.cell.productId, snapshot.lastSeq);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Product> written = new HashMap<>();
+                // Registered before writeBack's cache puts, so cells move to the new rows first
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        for (Snapshot snapshot : snapshots) {
+                            Cell cell = snapshot.cell;
+                            cell.lock.lock();
+                            try {
+                                cell.inFlight = 0;
+                                cell.checkpointSeq = snapshot.lastSeq;
+                                Product row = written.get(cell.productId);
+                                if (row != null && cell.loaded) {
+                                    cell.setBase(row);
+                                }
+                                cell.publish();
+                            } finally {
+                                cell.lock.unlock();
+                            }
+                        }
+                    }
+                });
+                written.putAll(writeBack(deltas, lastSeqs));
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not write buffered stock for {} products, will retry: {}",
+                    snapshots.size(), e.getMessage());
+            for (Snapshot snapshot : snapshots) {
+                Cell cell = snapshot.cell;
+                cell.lock.lock();
+                try {
+                    cell.pending += cell.inFlight;
+                    cell.inFlight = 0;
+                    cell.publish();
+                } finally {
+                    cell.lock.unlock();
+                }
+            }
+            return false;
+        }
+        flushedProducts.add(deltas.size());
+        return true;
+    }
+
+    /**
+     * Apply stock deltas and raise journal checkpoints in the current
+     * transaction, queueing the changed products for S3 mirroring.
+     *
+     * @return the changed products as written
+     */
+    private Map<Long, Product> writeBack(Map<Long, Long> deltas, Map<Long, Long> lastSeqs) {
+        productRepository.applyStockDeltas(deltas, Product.timestamp());
+        checkpointRepository.saveAll(nodeId, lastSeqs);
+        Map<Long, Product> written = new HashMap<>();
+        if (deltas.isEmpty()) {
+            return written;
+        }
+        List<ProductOutboxEvent> events = new ArrayList<>(deltas.size());
+        for (Product product : productRepository.findAllById(deltas.keySet())) {
+            written.put(product.getId(), product);
+            events.add(ProductOutboxEvent.upsert(product.getId()));
+            productCache.put(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+        productRepository.insertOutboxEvents(events);
+        return written;
+    }
+
+    private View view(Long id) {
+        if (cells.isEmpty()) {
+            return null;
+        }
+        Cell cell = cells.get(id);
+        return cell != null ? cell.view : null;
+    }
+
+    // A read-write transaction keeps the base on the writer when read-only
+    // transactions are routed to a replica.
+    private Product read(Long id) {
+        return transactionTemplate.execute(status -> productRepository.findById(id).orElse(null));
+    }
+
+    // Called with the cell locked, with a row read since the cell was last unloaded
+    private void load(Cell cell, Product product) {
+        if (product == null) {
+            cell.retired = true;
+            cells.remove(cell.productId, cell);
+            throw new ResourceNotFoundException("Product not found with id: " + cell.productId);
+        }
+        cell.setBase(product);
+        cell.loaded = true;
+    }
+
+    // Cells with nothing buffered are dropped so the map only holds products being adjusted
+    private void removeIdleCells() {
+        for (Cell cell : cells.values()) {
+            if (!cell.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (cell.pending == 0 && cell.inFlight == 0 && cell.lastSeq <= cell.checkpointSeq) {
+                    cell.retired = true;
+                    cells.remove(cell.productId, cell);
+                }
+            } finally {
+                cell.lock.unlock();
+            }
+        }
+    }
+
+    private static void unlock(List<Cell> cells) {
+        for (Cell cell : cells) {
+            cell.lock.unlock();
+        }
+    }
+
+    private static final class Cell {
+
+        private final long productId;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Guarded by lock
+        private boolean loaded;
+        private boolean retired;
+        // Incremented whenever the cell is unloaded, so a row read before that is not used
+        private long generation;
+        private int base;
+        private long baseVersion;
+        private LocalDateTime baseUpdatedAt;
+        private long pending;
+        private long inFlight;
+        private long lastSeq;
+        private long checkpointSeq;
+
+        // Read without the lock by overlay()
+        private volatile View view;
+
+        Cell(Long productId) {
+            this.productId = productId;
+        }
+
+        long available() {
+            return base + inFlight + pending;
+        }
+
+        void setBase(Product product) {
+            base = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            baseVersion = product.getVersion() != null ? product.getVersion() : 0;
+            baseUpdatedAt = product.getUpdatedAt();
+        }
+
+        void publish() {
+            view = loaded ? new View(base, baseVersion, baseUpdatedAt, inFlight + pending) : null;
+        }
+    }
+
+    private record View(int base, long baseVersion, LocalDateTime baseUpdatedAt, long unflushed) {
+
+        boolean isCurrent(Long version) {
+            return version != null && version >= baseVersion;
+        }
+
+        // Stock with buffered deltas, on top of the caller's row if current, else the cell's
+        Integer stock(boolean current, Integer stockQuantity) {
+            long stock = current ? (stockQuantity != null ? stockQuantity : 0) : base;
+            return Math.toIntExact(stock + unflushed);
+        }
+    }
+
+    private record Snapshot(Cell cell, long delta, long lastSeq) {
+    }
+
+    // A product row read for a cell, or null if the product does not exist
+    private record Base(Cell cell, long generation, Product row) {
+    }
+}
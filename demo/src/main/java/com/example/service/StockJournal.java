@@ -0,0 +1,333 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only local journal of stock deltas, written with group commit: a
+ * writer thread writes and forces everything appended since its last pass,
+ * so many concurrent appends share one fsync.
+ *
+ * Records are 24 bytes (sequence, product id, delta, CRC32) in segment files
+ * named stock-&lt;first sequence&gt;.journal. rotate() starts a new segment
+ * and returns the closed ones, which the caller deletes once their deltas
+ * are in the database. Reading stops at the first torn or corrupt record of
+ * a segment, which can only be an append that was never acknowledged.
+ */
+class StockJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockJournal.class);
+
+    static final int RECORD_SIZE = 24;
+    private static final int INITIAL_BUFFER_RECORDS = 1024;
+
+    /**
+     * One journaled stock delta.
+     */
+    record Entry(long seq, long productId, int delta) {
+    }
+
+    private final Path directory;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+
+    // Guarded by lock
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * INITIAL_BUFFER_RECORDS);
+    private ByteBuffer spare = ByteBuffer.allocate(RECORD_SIZE * INITIAL_BUFFER_RECORDS);
+    private long nextSeq;
+    private long durableSeq;
+    private FileChannel segment;
+    private Path segmentPath;
+    private long segmentFirstSeq;
+    private final List<Path> closedSegments = new ArrayList<>();
+    private IOException failure;
+    private boolean closed;
+
+    private Thread writer;
+
+    StockJournal(Path directory, boolean sync) {
+        this.directory = directory;
+        this.sync = sync;
+    }
+
+    /**
+     * The segment files left in the journal directory, oldest first.
+     */
+    List<Path> segments() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("stock-\\d+\\.journal"))
+                    .sorted((a, b) -> Long.compare(firstSeq(a), firstSeq(b)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Read every record in the given segments, in sequence order. Used for
+     * recovery before start().
+     */
+    static List<Entry> read(List<Path> segments) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments) {
+            readSegment(path, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Open a new segment, numbering records after firstSeq - 1, and start the
+     * writer thread.
+     */
+    void start(long firstSeq) throws IOException {
+        lock.lock();
+        try {
+            nextSeq = firstSeq;
+            durableSeq = firstSeq - 1;
+            openSegment();
+        } finally {
+            lock.unlock();
+        }
+        writer = new Thread(this::writeLoop, "stock-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Buffer a record and return its sequence number. Call awaitDurable with
+     * it before acknowledging the change.
+     */
+    long append(long productId, int delta) {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new UncheckedIOException("Stock journal is not writable", failure);
+            }
+            if (closed) {
+                throw new IllegalStateException("Stock journal is closed");
+            }
+            long seq = nextSeq++;
+            if (pending.remaining() < RECORD_SIZE) {
+                pending = grow(pending);
+            }
+            int start = pending.position();
+            pending.putLong(seq).putLong(productId).putInt(delta);
+            CRC32 crc = new CRC32();
+            crc.update(pending.array(), start, RECORD_SIZE - 4);
+            pending.putInt((int) crc.getValue());
+            appended.signal();
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the record with the given sequence number has been written
+     * and forced to disk.
+     */
+    void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Stock journal write failed", failure);
+                }
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The sequence number of the last record appended.
+     */
+    long lastSeq() {
+        lock.lock();
+        try {
+            return nextSeq - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start a new segment for records appended from now on and return the
+     * segments closed so far, oldest first. Records already appended are
+     * written to the closed segment before this returns.
+     */
+    List<Path> rotate() throws IOException {
+        lock.lock();
+        try {
+            long last = nextSeq - 1;
+            while (durableSeq < last && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            // An empty segment stays open; its name is taken from the next sequence number
+            if (nextSeq > segmentFirstSeq) {
+                segment.close();
+                closedSegments.add(segmentPath);
+                openSegment();
+            }
+            return new ArrayList<>(closedSegments);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete closed segments whose records are all in the database.
+     */
+    void delete(List<Path> segments) {
+        for (Path path : segments) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete stock journal segment {}: {}", path, e.getMessage());
+            }
+        }
+        lock.lock();
+        try {
+            closedSegments.removeAll(segments);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (writer != null) {
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchLastSeq;
+            FileChannel channel;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    closeSegment();
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchLastSeq = nextSeq - 1;
+                channel = segment;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (sync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+                logger.error("Stock journal write failed, stock adjustments will be rejected: {}", e.getMessage(), e);
+            }
+            batch.clear();
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSeq = batchLastSeq;
+                }
+                durable.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Called with lock held; the writer has flushed everything appended so far
+    private void openSegment() throws IOException {
+        segmentFirstSeq = nextSeq;
+        segmentPath = directory.resolve("stock-" + nextSeq + ".journal");
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void closeSegment() {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.warn("Could not close stock journal segment {}: {}", segmentPath, e.getMessage());
+        }
+    }
+
+    private static long firstSeq(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring("stock-".length(), name.length() - ".journal".length()));
+    }
+
+    private static void readSegment(Path path, List<Entry> entries) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= RECORD_SIZE) {
+            int start = data.position();
+            crc.reset();
+            crc.update(data.array(), start, RECORD_SIZE - 4);
+            long seq = data.getLong();
+            long productId = data.getLong();
+            int delta = data.getInt();
+            if (data.getInt() != (int) crc.getValue()) {
+                logger.warn("Stock journal segment {} has a corrupt record at offset {}, ignoring the rest",
+                        path, start);
+                return;
+            }
+            entries.add(new Entry(seq, productId, delta));
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
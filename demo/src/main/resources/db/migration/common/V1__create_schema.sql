@@ -0,0 +1,34 @@
+-- Tables as created by the former schema.sql. IF NOT EXISTS lets databases
+-- initialised by it be adopted (see spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000),
+    price DECIMAL(10, 2) NOT NULL,
+    stock_quantity INT,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_products_updated_at (updated_at)
+);
+
+-- Pending S3 mirror operations, written in the same transaction as the product change
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    event_type VARCHAR(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    INDEX idx_product_outbox_next_attempt (next_attempt_at)
+);
+
+-- Last stock journal record applied to products, per application node and product
+CREATE TABLE IF NOT EXISTS stock_journal_checkpoint (
+    node_id VARCHAR(64) NOT NULL,
+    product_id BIGINT NOT NULL,
+    last_seq BIGINT NOT NULL,
+    PRIMARY KEY (node_id, product_id)
+);
@@ -0,0 +1,12 @@
+-- Secondary indexes for the repository queries that filter on something
+-- other than the primary key. InnoDB appends the primary key to every
+-- secondary index, so each of these also orders by id within a value.
+
+-- ProductRepository.findPriceRangePage (price, then id), countByPriceBetween
+CREATE INDEX idx_products_price ON products (price);
+
+-- findByIdGreaterThanAndStockQuantityGreaterThan...
+CREATE INDEX idx_products_stock_quantity ON products (stock_quantity);
+
+-- ProductOutboxRepository.deleteDispatched and markFailed (product_id, id <= ?)
+CREATE INDEX idx_product_outbox_product ON product_outbox (product_id);
@@ -0,0 +1,9 @@
+-- Sequenced log of committed product changes behind GET /api/products/changes,
+-- written in the same transaction as the change and pruned by age
+CREATE TABLE IF NOT EXISTS product_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL,
+    INDEX idx_product_changes_changed_at (changed_at)
+);
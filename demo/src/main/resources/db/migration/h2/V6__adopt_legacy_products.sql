@@ -0,0 +1,10 @@
+-- As mysql/V6: brings a products table created by the former schema.sql up
+-- to V1's definition, and changes nothing on tables V1 created.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE products ALTER COLUMN created_at SET DATA TYPE TIMESTAMP(6);
+
+ALTER TABLE products ALTER COLUMN updated_at SET DATA TYPE TIMESTAMP(6);
+
+CREATE INDEX IF NOT EXISTS idx_products_updated_at ON products (updated_at);
@@ -0,0 +1,17 @@
+-- Full-text indexes for name search while the in-memory search index loads
+-- (ProductBatchRepositoryImpl.searchRanked). The ngram parser indexes every
+-- two-character sequence, so a quoted phrase query finds substrings inside
+-- words ("phone" in "Smartphone") rather than only whole words.
+--
+-- The default InnoDB stopword list contains single letters such as "a" and
+-- "i", and the ngram parser drops every token containing a stopword. The
+-- indexes are therefore created without stopwords; the setting is recorded
+-- with each index and also applies to queries against it.
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+CREATE FULLTEXT INDEX idx_products_name_ft ON products (name) WITH PARSER ngram;
+
+-- Used instead when product.search.index-description=true
+CREATE FULLTEXT INDEX idx_products_name_description_ft ON products (name, description) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
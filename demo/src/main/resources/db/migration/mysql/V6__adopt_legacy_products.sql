@@ -0,0 +1,33 @@
+-- Brings a products table created by the former schema.sql, and adopted by
+-- V1's CREATE TABLE IF NOT EXISTS, up to V1's definition: the optimistic
+-- lock column, microsecond timestamps (so updatedAt moves on every write and
+-- ETags change with it) and the updated_at index behind the catalog version.
+-- MySQL has no IF NOT EXISTS for columns or indexes, so each change is only
+-- prepared when information_schema shows it is missing; on tables V1
+-- created, every statement is DO 0.
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'products' AND column_name = 'version') = 0,
+              'ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0',
+              'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'products'
+                 AND column_name IN ('created_at', 'updated_at') AND datetime_precision < 6) > 0,
+              'ALTER TABLE products MODIFY created_at TIMESTAMP(6) NULL, MODIFY updated_at TIMESTAMP(6) NULL',
+              'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'products'
+                 AND index_name = 'idx_products_updated_at') = 0,
+              'CREATE INDEX idx_products_updated_at ON products (updated_at)',
+              'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
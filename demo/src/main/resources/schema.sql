@@ -1,10 +0,0 @@
--- Create products table if it doesn't exist
-CREATE TABLE IF NOT EXISTS products (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    name VARCHAR(255) NOT NULL,
-    description VARCHAR(1000),
-    price DECIMAL(10, 2) NOT NULL,
-    stock_quantity INT,
-    created_at TIMESTAMP,
-    updated_at TIMESTAMP
-);
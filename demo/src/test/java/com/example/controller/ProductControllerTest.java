@@ -0,0 +1,79 @@
+package com.example.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.DemoApplication;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(classes = DemoApplication.class, properties = {
+    "spring.datasource.url=jdbc:h2:mem:controller;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "aws.s3.mode=local",
+    "product.search.full-text=false",
+    "product.outbox.dispatcher.enabled=false",
+    "product.snapshot.enabled=false",
+    "logging.file.name=target/test.log"
+})
+@AutoConfigureMockMvc
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void createIgnoresVersionInBody() throws Exception {
+        JsonNode created = create("{\"name\":\"Desk Lamp\",\"price\":19.99,\"stockQuantity\":3,\"version\":7}");
+
+        assertThat(created.get("version").asLong()).isZero();
+        long id = created.get("id").asLong();
+        mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Desk Lamp"))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    void createWithIdAndVersionOfExistingProductInsertsNewProduct() throws Exception {
+        JsonNode existing = create("{\"name\":\"Floor Lamp\",\"price\":49.99,\"stockQuantity\":1}");
+        long existingId = existing.get("id").asLong();
+        long count = productRepository.count();
+
+        JsonNode created = create("{\"id\":" + existingId + ",\"name\":\"Reading Lamp\",\"price\":29.99,"
+                + "\"stockQuantity\":2,\"version\":0}");
+
+        assertThat(created.get("id").asLong()).isNotEqualTo(existingId);
+        assertThat(productRepository.count()).isEqualTo(count + 1);
+        mockMvc.perform(get("/api/products/{id}", existingId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Floor Lamp"))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    private JsonNode create(String body) throws Exception {
+        String response = mockMvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+import com.example.model.ProductPage;
+import com.example.model.ProductSummary;
+import com.example.service.ProductPriceIndex;
+import com.example.service.ProductSearchIndex;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Cursors issued by the servlet stack, which pages search and price ranges
+ * from its in-memory indexes, page the same rows on the reactive stack.
+ */
+class ReactiveKeysetCursorTest {
+
+    private static final String OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String[] NAMES = {
+        "Lamp", "Lamp Shade", "Desk Lamp", "Table-Lamp", "Clamp", "Lamplighter", "Floor lamp",
+        "Night LAMP", "Clamp Set", "Reading Lamp", "lamp", "Lamp Oil", "Chair", "Desk"
+    };
+
+    private static final String[] PRICES = {
+        "19.99", "5.00", "19.99", "12.50", "5.00", "99.95", "19.99", "12.50", "0.99", "19.99", "5.00", "42.00",
+        "19.99", "150.00"
+    };
+
+    private static ReactiveProductService reactiveService;
+    private static final ProductSearchIndex searchIndex = new ProductSearchIndex(false);
+    private static final ProductPriceIndex priceIndex = new ProductPriceIndex();
+
+    @BeforeAll
+    static void seed() {
+        Flyway.configure()
+                .dataSource("jdbc:h2:mem:keyset" + OPTIONS, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem://sa@/keyset" + OPTIONS);
+        reactiveService = new ReactiveProductService(
+                new ReactiveProductRepository(DatabaseClient.create(connectionFactory)),
+                TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory)),
+                50, 500, 500, 3, 1000, false, false);
+        for (int i = 0; i < NAMES.length; i++) {
+            Product product = new Product();
+            product.setName(NAMES[i]);
+            product.setDescription("Product " + i);
+            product.setPrice(new BigDecimal(PRICES[i]));
+            product.setStockQuantity(i);
+            Product saved = reactiveService.createProduct(product).block();
+            searchIndex.load(saved);
+            priceIndex.load(saved);
+        }
+        searchIndex.markReady();
+        priceIndex.markReady();
+    }
+
+    @Test
+    void searchCursorFromIndexPagesReactiveSearch() {
+        List<KeysetCursor> ranked = searchIndex.search("lamp", null, 100);
+        assertThat(ranked).hasSize(12);
+
+        ProductPage first = reactiveService.searchByName(" LAMP ", null, 4).block();
+        assertThat(ids(first)).isEqualTo(ids(ranked.subList(0, 4)));
+        assertThat(first.getNextCursor()).isEqualTo(ranked.get(3).toString());
+
+        for (int from = 1; from < ranked.size(); from += 3) {
+            String cursor = ranked.get(from - 1).toString();
+            ProductPage page = reactiveService.searchByName("lamp", cursor, 3).block();
+            List<KeysetCursor> expected = ranked.subList(from, Math.min(from + 3, ranked.size()));
+            assertThat(ids(page)).as("after %s", cursor).isEqualTo(ids(expected));
+            String next = from + 3 < ranked.size() ? expected.get(expected.size() - 1).toString() : null;
+            assertThat(page.getNextCursor()).isEqualTo(next);
+        }
+    }
+
+    @Test
+    void twoCharacterSearchMatchesIndexAndShorterIsRejected() {
+        List<KeysetCursor> ranked = searchIndex.search("la", null, 100);
+        assertThat(ranked).hasSize(12);
+        ProductPage page = reactiveService.searchByName("LA", ranked.get(1).toString(), 100).block();
+        assertThat(ids(page)).isEqualTo(ids(ranked.subList(2, ranked.size())));
+
+        assertThatThrownBy(() -> reactiveService.searchByName(" l ", null, 10).block())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least 2 characters");
+    }
+
+    @Test
+    void priceCursorFromIndexPagesReactivePriceRange() {
+        BigDecimal min = new BigDecimal("4.999");
+        BigDecimal max = new BigDecimal("99.951");
+        long minCents = ProductPriceIndex.toCents(min, RoundingMode.CEILING);
+        long maxCents = ProductPriceIndex.toCents(max, RoundingMode.FLOOR);
+        List<KeysetCursor> ordered = priceIndex.range(minCents, maxCents, null, 100);
+        assertThat(ordered).hasSize(12);
+
+        ProductPage first = reactiveService.findByPriceRange(min, max, null, 5).block();
+        assertThat(ids(first)).isEqualTo(ids(ordered.subList(0, 5)));
+        assertThat(first.getNextCursor()).isEqualTo(ordered.get(4).toString());
+        assertThat(first.getTotalCount()).isEqualTo(priceIndex.count(minCents, maxCents));
+
+        for (int from = 1; from < ordered.size(); from += 5) {
+            String cursor = ordered.get(from - 1).toString();
+            ProductPage page = reactiveService.findByPriceRange(min, max, cursor, 5).block();
+            List<KeysetCursor> expected = ordered.subList(from, Math.min(from + 5, ordered.size()));
+            assertThat(ids(page)).as("after %s", cursor).isEqualTo(ids(expected));
+        }
+    }
+
+    @Test
+    void emptyPriceRangeAfterRoundingReturnsNothing() {
+        ProductPage page = reactiveService.findByPriceRange(new BigDecimal("5.001"), new BigDecimal("5.009"), null, 5)
+                .block();
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getTotalCount()).isZero();
+    }
+
+    private static List<Long> ids(ProductPage page) {
+        List<Long> ids = new ArrayList<>();
+        for (ProductSummary item : page.getItems()) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(List<KeysetCursor> cursors) {
+        List<Long> ids = new ArrayList<>();
+        for (KeysetCursor cursor : cursors) {
+            ids.add(cursor.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProductJsonCodecTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 2, 29, 13, 5, 7, 123_456_000);
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private final ProductJsonCodec codec = new ProductJsonCodec();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "plain",
+        "\"quoted\" and 'single'",
+        "back\\slash \\\\ and \\u0041 literally",
+        "line one\nline two\r\nend\ttab",
+        "controls \u0000 \u0001 \u0008 \u000b \u000c \u001b \u001f \u007f",
+        "non-ASCII: café über 中文 Ж no-break\u00a0space",
+        "surrogate pairs: 😀 𝄞 🇯🇵",
+        "separators \u2028 \u2029 and </script>",
+        ""
+    })
+    void roundTripsStringsAndMatchesJackson(String text) throws Exception {
+        Product product = new Product(42L, text, "description: " + text, new BigDecimal("19.99"), 7,
+                CREATED_AT, UPDATED_AT);
+
+        byte[] json = bytes(codec.encode(product));
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(jackson(product));
+        assertSameFields(codec.decode(json), product);
+    }
+
+    @Test
+    void roundTripsNullFields() throws Exception {
+        Product product = new Product(1L, null, null, null, null, null, null);
+
+        byte[] json = bytes(codec.encode(product));
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(jackson(product));
+        assertSameFields(codec.decode(json), product);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "0.00", "10.50", "1299.99", "-3.10", "99999999.99", "0.000001", "1E+3", "12345678901234567890.123"})
+    void keepsPriceScale(String price) throws Exception {
+        Product product = new Product(5L, "priced", null, new BigDecimal(price), 0, CREATED_AT, UPDATED_AT);
+
+        byte[] json = bytes(codec.encode(product));
+        Product decoded = codec.decode(json);
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(jackson(product));
+        assertThat(decoded.getPrice()).isEqualTo(new BigDecimal(price));
+        assertThat(decoded.getPrice().scale()).isEqualTo(new BigDecimal(price).scale());
+    }
+
+    @Test
+    void reusesAndReplacesTheThreadBuffer() {
+        Product large = new Product(2L, "large", "x".repeat(100_000), BigDecimal.ONE, 1, CREATED_AT, UPDATED_AT);
+        Product small = new Product(3L, "small", "y", BigDecimal.TEN, 2, CREATED_AT, UPDATED_AT);
+
+        Product decodedLarge = codec.decode(bytes(codec.encode(large)));
+        Product decodedSmall = codec.decode(bytes(codec.encode(small)));
+        Product decodedAgain = codec.decode(bytes(codec.encode(small)));
+
+        assertSameFields(decodedLarge, large);
+        assertSameFields(decodedSmall, small);
+        assertSameFields(decodedAgain, small);
+    }
+
+    @Test
+    void skipsUnknownFields() {
+        String json = "{\"schemaVersion\":1,\"id\":9,\"extra\":{\"nested\":[1,2,{\"a\":null}]},"
+                + "\"name\":\"n\",\"tags\":[\"a\",\"b\"],\"price\":1.50}";
+
+        Product decoded = codec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getId()).isEqualTo(9L);
+        assertThat(decoded.getName()).isEqualTo("n");
+        assertThat(decoded.getPrice()).isEqualTo(new BigDecimal("1.50"));
+    }
+
+    @Test
+    void rejectsNewerSchemaVersions() {
+        byte[] json = ("{\"schemaVersion\":" + (ProductJsonCodec.SCHEMA_VERSION + 1) + ",\"id\":1}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> codec.decode(json)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        assertThatThrownBy(() -> codec.decode("[1]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode("{\"name\":\"unterminated".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * The UTF-8 document ObjectMapper writes for the same fields, in the
+     * codec's field order. Like the codec it escapes surrogate pairs.
+     */
+    private String jackson(Product product) throws Exception {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("schemaVersion", ProductJsonCodec.SCHEMA_VERSION);
+        document.put("id", product.getId());
+        document.put("name", product.getName());
+        document.put("description", product.getDescription());
+        document.put("price", product.getPrice());
+        document.put("stockQuantity", product.getStockQuantity());
+        document.put("createdAt", product.getCreatedAt() != null ? product.getCreatedAt().toString() : null);
+        document.put("updatedAt", product.getUpdatedAt() != null ? product.getUpdatedAt().toString() : null);
+        return new String(objectMapper.writeValueAsBytes(document), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void assertSameFields(Product actual, Product expected) {
+        assertThat(actual.getId()).isEqualTo(expected.getId());
+        assertThat(actual.getName()).isEqualTo(expected.getName());
+        assertThat(actual.getDescription()).isEqualTo(expected.getDescription());
+        assertThat(actual.getPrice()).isEqualTo(expected.getPrice());
+        assertThat(actual.getStockQuantity()).isEqualTo(expected.getStockQuantity());
+        assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+        assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
+    }
+}
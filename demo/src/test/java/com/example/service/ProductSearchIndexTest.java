@@ -0,0 +1,68 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.model.KeysetCursor;
+import com.example.model.Product;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(false);
+
+    @BeforeEach
+    void load() {
+        String[] names = {"TV", "TV Stand", "Smart tv", "Lamp", "Desk", "Tvorog", "Ultra-TV", "Octave"};
+        for (int i = 0; i < names.length; i++) {
+            index.load(product(i + 1L, names[i]));
+        }
+        index.markReady();
+    }
+
+    @Test
+    void twoCharacterQueryIsRankedFromTheBigramPostings() {
+        assertThat(index.search(" tv ", null, 10)).containsExactly(
+                new KeysetCursor(ProductSearchIndex.EXACT, 1),
+                new KeysetCursor(ProductSearchIndex.PREFIX, 2),
+                new KeysetCursor(ProductSearchIndex.PREFIX, 6),
+                new KeysetCursor(ProductSearchIndex.WORD_PREFIX, 3),
+                new KeysetCursor(ProductSearchIndex.WORD_PREFIX, 7));
+        assertThat(index.search("ta", null, 10)).containsExactly(
+                new KeysetCursor(ProductSearchIndex.SUBSTRING, 2),
+                new KeysetCursor(ProductSearchIndex.SUBSTRING, 8));
+    }
+
+    @Test
+    void twoCharacterQueryPagesAfterACursor() {
+        List<KeysetCursor> first = index.search("tv", null, 2);
+        assertThat(first).hasSize(2);
+        assertThat(index.search("tv", first.get(1), 10)).extracting(KeysetCursor::getId).containsExactly(6L, 3L, 7L);
+    }
+
+    @Test
+    void twoCharacterQueryFollowsRenamesAndRemovals() {
+        index.index(product(4L, "Lamp with TV"));
+        index.remove(1L);
+        assertThat(index.search("tv", null, 10)).extracting(KeysetCursor::getId).containsExactly(2L, 6L, 3L, 4L, 7L);
+        assertThat(index.search("zz", null, 10)).isEmpty();
+    }
+
+    @Test
+    void queriesShorterThanTheMinimumMatchNothing() {
+        assertThat(index.search("t", null, 10)).isEmpty();
+        assertThat(index.search("  ", null, 10)).isEmpty();
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(BigDecimal.ONE);
+        return product;
+    }
+}
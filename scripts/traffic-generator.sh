@@ -14,7 +14,7 @@ ENDPOINTS=(
   "/api/products"
   "/api/products/health"
   "/api/products/in-stock"
-  "/api/products/search?name=a"
+  "/api/products/search?name=ph"
   "/api/products/price?min=0&max=1000"
 )
 